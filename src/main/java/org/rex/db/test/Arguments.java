@@ -0,0 +1,123 @@
+package org.rex.db.test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * command line arguments, in the form of name=value
+ */
+public class Arguments {
+	
+	private Map<String, String> values = new LinkedHashMap<String, String>();
+	
+	public Arguments(String[] args){
+		for (int i = 0; i < args.length; i++) {
+			int index = args[i].indexOf('=');
+			if(index == -1)
+				values.put(args[i].trim().toLowerCase(), "true");
+			else
+				values.put(args[i].substring(0, index).trim().toLowerCase(), args[i].substring(index + 1).trim());
+		}
+	}
+	
+	public boolean has(String name){
+		return values.containsKey(name.toLowerCase());
+	}
+	
+	public String get(String name, String defaultValue){
+		String value = values.get(name.toLowerCase());
+		return value == null || value.length() == 0 ? defaultValue : value;
+	}
+	
+	public void set(String name, String value){
+		values.put(name.toLowerCase(), value);
+	}
+	
+	public int getInt(String name, int defaultValue){
+		return getInt(name, defaultValue, 1);
+	}
+	
+	public int getInt(String name, int defaultValue, int min){
+		String value = get(name, null);
+		if(value == null) return defaultValue;
+		
+		try{
+			int i = Integer.parseInt(value);
+			if(i < min){
+				System.out.println("argument '"+name+"' must not be less than "+min+".");
+				return defaultValue;
+			}
+			return i;
+		}catch(Exception e){
+			System.out.println("argument '"+name+"' is not a number.");
+			return defaultValue;
+		}
+	}
+	
+	public double getDouble(String name, double defaultValue){
+		String value = get(name, null);
+		if(value == null) return defaultValue;
+		
+		try{
+			return Double.parseDouble(value);
+		}catch(Exception e){
+			System.out.println("argument '"+name+"' is not a number.");
+			return defaultValue;
+		}
+	}
+	
+	public boolean getBoolean(String name, boolean defaultValue){
+		String value = get(name, null);
+		return value == null ? defaultValue : "true".equalsIgnoreCase(value);
+	}
+	
+	/**
+	 * comma separated values
+	 */
+	public String[] getList(String name, String[] defaultValue){
+		String value = get(name, null);
+		if(value == null) return defaultValue;
+		
+		List<String> list = new ArrayList<String>();
+		String[] items = value.split(",");
+		for (int i = 0; i < items.length; i++) {
+			if(items[i].trim().length() > 0)
+				list.add(items[i].trim());
+		}
+		return list.toArray(new String[list.size()]);
+	}
+	
+	/**
+	 * comma separated numbers
+	 */
+	public int[] getInts(String name, int[] defaultValue){
+		String[] items = getList(name, null);
+		if(items == null) return defaultValue;
+		
+		try{
+			int[] ints = new int[items.length];
+			for (int i = 0; i < items.length; i++) {
+				ints[i] = Integer.parseInt(items[i]);
+			}
+			return ints;
+		}catch(Exception e){
+			System.out.println("argument '"+name+"' is not a list of numbers.");
+			return defaultValue;
+		}
+	}
+	
+	/**
+	 * back to name=value form, for forked JVMs
+	 */
+	public String[] toArgs(){
+		List<String> args = new ArrayList<String>();
+		for (Iterator<Map.Entry<String, String>> iterator = values.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, String> entry = iterator.next();
+			args.add(entry.getKey() + "=" + entry.getValue());
+		}
+		return args.toArray(new String[args.size()]);
+	}
+}
@@ -7,38 +7,44 @@ public class RunAllTests {
 
 	//fast = 10
 	public static void main(String[] args) throws Exception {
-		int speed = 10, loop = 30;
-		
-		for (int i = 0; i < args.length; i++) {
-			
-			String[] p = args[i].split("=");
-			
-			String arg0 = p[0].trim().toLowerCase();
-			int arg1 = -1;
-			try{
-				arg1 = Integer.parseInt(p[1]);
-				if(arg1 <= 0)
-					System.out.println("argument '"+arg0+"' must be greater than 0.");
-			}catch(Exception e){
-				System.out.println("argument '"+arg0+"' is not a number.");
-			}
-			
-
-			if("speed".equals(arg0) && arg1 > 0){
-				speed = arg1;
-			}else if("loop".equals(arg0) && arg1 > 0){
-				loop = arg1;
-			}
-		}
-		
+		Arguments arguments = new Arguments(args);
+		int speed = arguments.getInt("speed", 10), 
+			loop = arguments.getInt("loop", 30),
+			threads = arguments.getInt("threads", Runtime.getRuntime().availableProcessors());
+		String mode = arguments.get("mode", "single");
+		double ci = arguments.getDouble("ci", 0), confidence = arguments.getDouble("confidence", 0.95);
+		int budget = arguments.getInt("budget", 300);
+		boolean fork = arguments.getBoolean("fork", false);
+		arguments.set("speed", String.valueOf(speed));
+		arguments.set("loop", String.valueOf(loop));
+		arguments.set("mode", mode);
 		
 		System.out.println("================== starting test ==================");
 		System.out.println("--speed: "+speed);
 		System.out.println("--loop: "+loop);
+		System.out.println("--mode: "+mode);
+		if(ci > 0)
+			System.out.println("--adaptive: confidence interval within +/-"+(ci * 100)+"% at "+(confidence * 100)+"% confidence, time budget "+budget+" s");
 		
 		
-		new RunSQLScript().run();
+		if(!RunSQLScript.startEmbedded(arguments))
+			new RunSQLScript().run();
 		new RunApiTest().run();
-		new RunPerformanceTest(speed, loop).run();
+		
+		if(fork && !"concurrent".equals(mode)){
+			System.out.println("--fork: every framework and scenario runs in its own JVM");
+			RunPerformanceTest.runForked(arguments);
+			return;
+		}
+		
+		RunPerformanceTest test;
+		if("concurrent".equals(mode)){
+			System.out.println("--threads: "+threads);
+			test = new RunConcurrentTest(speed, loop, threads);
+		}else
+			test = new RunPerformanceTest(speed, loop);
+		
+		test.configure(arguments);
+		test.run();
 	}
 }
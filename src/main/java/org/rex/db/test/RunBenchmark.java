@@ -0,0 +1,211 @@
+package org.rex.db.test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.rex.db.test.performance.Blackhole;
+import org.rex.db.test.performance.Dao;
+import org.rex.db.test.performance.JvmFork;
+import org.rex.db.test.performance.Scenario;
+import org.rex.db.test.performance.Statistics;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * JMH style benchmark of the DAOs. Every benchmark and framework pair is a trial which runs in its own forked JVM,
+ * with warmup and measurement iterations of fixed time, results of calls are consumed by a blackhole.
+ *
+ * arguments: forks=1 warmup=5 iterations=10 time=1000(ms) rows=500 tableRows=5000
+ *            framework=rexdb,jdbc,hibernate,mybatis,spring bench=insert,insertPs,batchInsert,getList,getMapList (any scenario)
+ */
+public class RunBenchmark implements Runner{
+
+	public static final String[] BENCHMARKS = new String[]{"insert", "insertPs", "batchInsert", "getList", "getMapList"};
+
+	private int forks = 1, warmup = 5, iterations = 10, time = 1000, rows = 500, tableRows = 5000;
+	private String[] frameworks = RunPerformanceTest.FRAMEWORKS, benchmarks = BENCHMARKS;
+	private boolean child;
+
+	private Arguments args;
+
+	public RunBenchmark(Arguments args){
+		this.args = args;
+		forks = args.getInt("forks", forks, 0);
+		warmup = args.getInt("warmup", warmup);
+		iterations = args.getInt("iterations", iterations);
+		time = args.getInt("time", time);
+		rows = args.getInt("rows", rows);
+		tableRows = args.getInt("tableRows", tableRows);
+		frameworks = args.getList("framework", frameworks);
+		benchmarks = args.getList("bench", benchmarks);
+		child = args.getBoolean("child", false);
+	}
+
+	//--------------state
+	//trial setup, in the same way as @State(Scope.Benchmark) @Setup(Level.Trial)
+	void setup(Scenario scenario, Dao dao) throws Exception{
+		dao.delete();
+		scenario.setUp(dao, scenario.getTableRows() > 0 ? tableRows : 0);
+	}
+
+	//iteration teardown, keeps the table size steady for benchmarks changing rows
+	void tearDownIteration(Scenario scenario, Dao dao) throws Exception{
+		if(!scenario.isReadOnly()){
+			scenario.tearDown(dao);
+			setup(scenario, dao);
+		}
+	}
+
+	//--------------benchmark methods
+	//an operation is a single call, one row of scenarios running row by row
+	void invoke(Scenario scenario, Dao dao, Blackhole blackhole) throws Exception{
+		blackhole.consume(scenario.execute(dao, scenario.isRowByRow() ? 1 : rows, null));
+	}
+
+	//--------------iterations
+	//runs the benchmark for the given time, returns operations per second
+	double iteration(Scenario scenario, Dao dao, Blackhole blackhole) throws Exception{
+		long ops = 0, paused = 0, start = System.nanoTime(), deadline = start + time * 1000000L, now;
+		do{
+			//invocation setup, not timed like @Setup(Level.Invocation)
+			long prepare = System.nanoTime();
+			scenario.prepare(dao, scenario.isRowByRow() ? 1 : rows);
+			now = System.nanoTime();
+			paused += now - prepare;
+			deadline += now - prepare;
+
+			invoke(scenario, dao, blackhole);
+			ops++;
+			now = System.nanoTime();
+		}while(now < deadline);
+
+		tearDownIteration(scenario, dao);
+		return ops / ((now - start - paused) / 1000000000d);
+	}
+
+	//runs a trial in current JVM, returns scores of the measurement iterations
+	double[] trial(String benchmark, String framework) throws Exception{
+		Scenario scenario = Scenario.get(benchmark);
+		Dao dao = RunPerformanceTest.createDao(framework);
+		Blackhole blackhole = new Blackhole();
+
+		setup(scenario, dao);
+		try{
+			for (int i = 0; i < warmup; i++) {
+				System.out.println("# Warmup Iteration " + (i + 1) + ": " + format(iteration(scenario, dao, blackhole)) + " ops/s");
+			}
+
+			double[] scores = new double[iterations];
+			for (int i = 0; i < iterations; i++) {
+				scores[i] = iteration(scenario, dao, blackhole);
+				System.out.println("Iteration " + (i + 1) + ": " + format(scores[i]) + " ops/s");
+			}
+			return scores;
+		}finally{
+			scenario.tearDown(dao);
+			dao.delete();
+		}
+	}
+
+	//runs a trial in forked JVMs
+	double[] forkedTrial(String benchmark, String framework) throws Exception{
+		List<Double> scores = new ArrayList<Double>();
+		for (int i = 0; i < forks; i++) {
+			System.out.println("# Fork: " + (i + 1) + " of " + forks);
+
+			Arguments childArgs = new Arguments(args.toArgs());
+			childArgs.set("forks", "0");
+			childArgs.set("child", "true");
+			childArgs.set("bench", benchmark);
+			childArgs.set("framework", framework);
+
+			String result = JvmFork.launch(RunBenchmark.class, childArgs.toArgs());
+			scores.addAll(JSON.parseArray(result, Double.class));
+		}
+
+		double[] values = new double[scores.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = scores.get(i);
+		}
+		return values;
+	}
+
+	@Override
+	public void run() throws Exception {
+		if(child){
+			JvmFork.printResult(trial(benchmarks[0], frameworks[0]));
+			return;
+		}
+
+		System.out.println("===================== running benchmark ======================");
+		System.out.println("--forks: "+forks+", warmup: "+warmup+" x "+time+" ms, iterations: "+iterations+" x "+time+" ms");
+
+		Map<String, Map<String, double[]>> results = new LinkedHashMap<String, Map<String, double[]>>();
+		for (int i = 0; i < benchmarks.length; i++) {
+			Map<String, double[]> scores = new LinkedHashMap<String, double[]>();
+			for (int j = 0; j < frameworks.length; j++) {
+				System.out.println("-------------- benchmark "+benchmarks[i]+" of "+frameworks[j]+" ------------");
+				try{
+					scores.put(frameworks[j], forks == 0 ? trial(benchmarks[i], frameworks[j]) : forkedTrial(benchmarks[i], frameworks[j]));
+				}catch(Exception e){
+					System.out.println("-- "+frameworks[j]+" error: " + e.getMessage());
+				}
+			}
+			results.put(benchmarks[i], scores);
+		}
+
+		printResult(results);
+		printJson(results);
+	}
+
+	//--------------print
+	static String format(double value){
+		return String.format("%.3f", value);
+	}
+
+	public static void printResult(Map<String, Map<String, double[]>> results){
+		System.out.println("================== printing result ==================");
+		System.out.println(String.format("%-14s %-10s %5s %5s %14s   %12s  %s", "Benchmark", "Framework", "Mode", "Cnt", "Score", "Error", "Units"));
+
+		for (Map.Entry<String, Map<String, double[]>> benchmark : results.entrySet()) {
+			for (Map.Entry<String, double[]> framework : benchmark.getValue().entrySet()) {
+				double[] scores = framework.getValue();
+				System.out.println(String.format("%-14s %-10s %5s %5d %14.3f ± %12.3f  %s", benchmark.getKey(), framework.getKey(), "thrpt",
+						scores.length, Statistics.mean(scores), Statistics.confidenceInterval(scores, 0.999), "ops/s"));
+			}
+		}
+	}
+
+	public static void printJson(Map<String, Map<String, double[]>> results){
+		System.out.println("================== printing json result ==================");
+
+		Map datas = new LinkedHashMap();
+		for (Map.Entry<String, Map<String, double[]>> benchmark : results.entrySet()) {
+			Map frameworks = new LinkedHashMap();
+			for (Map.Entry<String, double[]> framework : benchmark.getValue().entrySet()) {
+				double[] scores = framework.getValue();
+				Map score = new LinkedHashMap();
+				score.put("score", Statistics.mean(scores));
+				score.put("error", Statistics.confidenceInterval(scores, 0.999));
+				score.put("unit", "ops/s");
+				score.put("samples", scores);
+				frameworks.put(framework.getKey(), score);
+			}
+			datas.put(benchmark.getKey(), frameworks);
+		}
+
+		System.out.println(JSON.toJSONString(datas));
+	}
+
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		RunSQLScript.startEmbedded(arguments);
+		RunBenchmark benchmark = new RunBenchmark(arguments);
+		benchmark.run();
+		//frameworks may leave non-daemon threads behind, e.g. the connection pool of hibernate
+		if(benchmark.child)
+			System.exit(0);
+	}
+}
@@ -0,0 +1,119 @@
+package org.rex.db.test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.rex.db.test.performance.BulkInsertScenario;
+import org.rex.db.test.performance.Scenario;
+
+/**
+ * Measures bulk inserts of every framework over batch sizes and commit intervals. Runs the bulkInsert scenario for every
+ * combination and prints rows per second as a curve over batch sizes, for each commit interval. The knee of a curve is the
+ * smallest batch size reaching 90% of the best throughput of the curve, larger batches gain little more.
+ *
+ * arguments: batchSizes=1,10,100,1000,10000 commitIntervals=0,1000 bulkRows=20000 loop=10 warmup=5, commit interval 0 commits once
+ */
+public class RunBulkInsertTest extends RunPerformanceTest{
+
+	static final double KNEE = 0.9;
+
+	private int[] batchSizes = new int[]{1, 10, 100, 1000, 10000};
+	private int[] commitIntervals = new int[]{0, 1000};
+
+	public RunBulkInsertTest(Arguments args) throws Exception{
+		super();
+		loop = args.getInt("loop", 10);
+		configure(args);
+		int[] sizes = args.getInts("batchSizes", batchSizes), intervals = args.getInts("commitIntervals", commitIntervals);
+		if(min(sizes) < 1 || min(intervals) < 0)
+			System.out.println("argument 'batchSizes' must be positive and 'commitIntervals' must not be negative.");
+		else{
+			batchSizes = sizes;
+			commitIntervals = intervals;
+		}
+		Arrays.sort(batchSizes);
+	}
+
+	@Override
+	public void run() throws Exception {
+		BulkInsertScenario scenario = (BulkInsertScenario)Scenario.get("bulkInsert");
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+
+		deleteRows();
+		System.out.println("===================== running bulk insert test ======================");
+		System.out.println("--batch sizes: " + RunTransactionTest.join(batchSizes) + ", commit intervals: " + RunTransactionTest.join(commitIntervals) + ", loop: " + loop);
+
+		for (int i = 0; i < commitIntervals.length; i++) {
+			scenario.setCommitInterval(commitIntervals[i]);
+			for (int j = 0; j < batchSizes.length; j++) {
+				scenario.setBatchSize(batchSizes[j]);
+				runScenario(testName(batchSizes[j], commitIntervals[i]), scenario, 1, results);
+			}
+		}
+
+		System.out.println("================== printing throughput curve (rows per second) ==================");
+		System.out.println("|  COMMIT  |  BATCH  |     rexdb     |     jdbc    |  hibernate |  mybatis |  spring |");
+		System.out.println("| -------- | ------- | ------------- | ----------- | ---------- | -------- | ------- |");
+		for (int i = 0; i < commitIntervals.length; i++) {
+			for (int j = 0; j < batchSizes.length; j++) {
+				double[] values = results.get(testName(batchSizes[j], commitIntervals[i]));
+				StringBuffer sb = new StringBuffer("|   " + commitName(commitIntervals[i]) + "   |   " + batchSizes[j] + "   |");
+				for (int k = 0; k < values.length; k++) {
+					sb.append("   ").append(values[k] == 0 ? "-" : df.format(values[k])).append("   |");
+				}
+				System.out.println(sb);
+			}
+			StringBuffer sb = new StringBuffer("|   " + commitName(commitIntervals[i]) + "   |   KNEE   |");
+			for (int k = 0; k < FRAMEWORKS.length; k++) {
+				int knee = knee(results, commitIntervals[i], k);
+				sb.append("   ").append(knee == 0 ? "-" : String.valueOf(knee)).append("   |");
+			}
+			System.out.println(sb);
+		}
+
+		printResult(results, latencies);
+		printAllocation(allocations);
+		printJson(results, latencies);
+	}
+
+	//smallest batch size within KNEE of the best throughput of a framework, 0 if the framework did not run
+	int knee(Map<String, double[]> results, int commitInterval, int framework){
+		double best = 0;
+		for (int j = 0; j < batchSizes.length; j++) {
+			best = Math.max(best, results.get(testName(batchSizes[j], commitInterval))[framework]);
+		}
+		if(best == 0) return 0;
+
+		for (int j = 0; j < batchSizes.length; j++) {
+			if(results.get(testName(batchSizes[j], commitInterval))[framework] >= best * KNEE)
+				return batchSizes[j];
+		}
+		return 0;
+	}
+
+	static int min(int[] values){
+		int min = Integer.MAX_VALUE;
+		for (int i = 0; i < values.length; i++) {
+			min = Math.min(min, values[i]);
+		}
+		return min;
+	}
+
+	static String testName(int batchSize, int commitInterval){
+		return "bulkInsert-" + batchSize + "-" + commitName(commitInterval);
+	}
+
+	static String commitName(int commitInterval){
+		return commitInterval == 0 ? "once" : String.valueOf(commitInterval);
+	}
+
+	//----------START TESTING
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		RunSQLScript.startEmbedded(arguments);
+		RunBulkInsertTest test = new RunBulkInsertTest(arguments);
+		test.fast = arguments.getInt("speed", 1);
+		test.run();
+	}
+}
@@ -0,0 +1,65 @@
+package org.rex.db.test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.rex.db.test.performance.CallScenario;
+import org.rex.db.test.performance.Dao;
+import org.rex.db.test.performance.Scenario;
+
+/**
+ * Measures stored procedure calls of every framework. Runs the call scenario for every procedure of the sql scripts:
+ * in parameters with a result set, out parameters, in and out parameters, inout parameters, a returned result set and
+ * 2 result sets. Reports throughput and latency of calls. Procedures exist in MySQL and the embedded HSQLDB, use
+ * embedded=hsqldb to run offline.
+ *
+ * arguments: procedure=in,out,in_out,inout,return,return_rs loop=20 warmup=5
+ */
+public class RunCallTest extends RunPerformanceTest{
+
+	private String[] procedures = Dao.PROCEDURES;
+
+	public RunCallTest(Arguments args) throws Exception{
+		super();
+		loop = args.getInt("loop", 20);
+		configure(args);
+		procedures = args.getList("procedure", procedures);
+	}
+
+	@Override
+	public void run() throws Exception {
+		CallScenario scenario = (CallScenario)Scenario.get("call");
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+
+		deleteRows();
+		System.out.println("===================== running procedure call test ======================");
+		System.out.println("--procedures: " + join(procedures) + ", loop: " + loop);
+
+		for (int i = 0; i < procedures.length; i++) {
+			scenario.setProcedure(procedures[i]);
+			runScenario("call-" + procedures[i], scenario, 1, results);
+		}
+
+		printResult(results, latencies);
+		printAllocation(allocations);
+		printJson(results, latencies);
+	}
+
+	static String join(String[] values){
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < values.length; i++) {
+			if(i > 0) sb.append(",");
+			sb.append(values[i]);
+		}
+		return sb.toString();
+	}
+
+	//----------START TESTING
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		RunSQLScript.startEmbedded(arguments);
+		RunCallTest test = new RunCallTest(arguments);
+		test.fast = arguments.getInt("speed", 1);
+		test.run();
+	}
+}
@@ -0,0 +1,137 @@
+package org.rex.db.test;
+
+import java.text.DecimalFormat;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.rex.db.test.performance.ResultStore;
+import org.rex.db.test.performance.Statistics;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * Compares a run in the result store with a baseline run. Throughput changes are tested with Welch's t-test
+ * on the throughput of every iteration, a drop is a regression when it is significant and larger than the threshold.
+ *
+ * runs are compared only when they differ in the revision alone, force=true compares them anyway.
+ *
+ * arguments: baseline=latest-1 current=latest alpha=0.05 threshold=0.02 storeDir=results/store list=false force=false
+ */
+public class RunCompare implements Runner{
+
+	static DecimalFormat pf = new DecimalFormat("0.0000");
+
+	private ResultStore store;
+	private String baseline = "latest-1", current = ResultStore.LATEST;
+	private double alpha = 0.05, threshold = 0.02;
+	private boolean list, force;
+
+	private int regressions;
+
+	public RunCompare(Arguments args){
+		store = new ResultStore(args.get("storeDir", "results/store"));
+		baseline = args.get("baseline", baseline);
+		current = args.get("current", current);
+		alpha = args.getDouble("alpha", alpha);
+		threshold = args.getDouble("threshold", threshold);
+		list = args.getBoolean("list", false);
+		force = args.getBoolean("force", false);
+	}
+
+	public int getRegressions() {
+		return regressions;
+	}
+
+	@Override
+	public void run() throws Exception {
+		if(list){
+			String[] ids = store.list();
+			System.out.println("================== stored runs ==================");
+			System.out.println("|   ID   |   DIALECT   |   JAVA   |   CONFIG   |");
+			System.out.println("| ------ | ----------- | -------- | ---------- |");
+			for (int i = 0; i < ids.length; i++) {
+				JSONObject key = store.load(ids[i]).getJSONObject("key");
+				System.out.println("|   " + ids[i] + "   |   " + key.getString("dialect") + "   |   " + key.getString("java") + "   |   " + key.getString("config") + "   |");
+			}
+			return;
+		}
+
+		JSONObject base = store.load(baseline), run = store.load(current);
+		System.out.println("================== comparing " + run.getString("id") + " with baseline " + base.getString("id") + " ==================");
+		String differs = printKey(base.getJSONObject("key"), run.getJSONObject("key"));
+		if(differs.length() > 0){
+			if(!force){
+				System.out.println("-- runs are not comparable, " + differs + " differ. use force=true to compare them anyway.");
+				return;
+			}
+			System.out.println("-- WARNING: " + differs + " differ, changes may not be caused by the revision.");
+		}
+
+		System.out.println("|   OPER   |  FRAMEWORK  |  BASELINE  |  CURRENT  |  CHANGE  |  p  |  VERDICT  |");
+		System.out.println("| -------- | ----------- | ---------- | --------- | -------- | --- | --------- |");
+
+		JSONObject baseSamples = base.getJSONObject("samples"), runSamples = run.getJSONObject("samples");
+		for (Iterator<Map.Entry<String, Object>> iterator = runSamples.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, Object> test = iterator.next();
+			JSONObject frameworks = (JSONObject)test.getValue(), baseFrameworks = baseSamples.getJSONObject(test.getKey());
+			if(baseFrameworks == null) continue;
+
+			for (Iterator<Map.Entry<String, Object>> it = frameworks.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<String, Object> framework = it.next();
+				double[] after = toArray((JSONArray)framework.getValue()), before = toArray(baseFrameworks.getJSONArray(framework.getKey()));
+				double meanBefore = Statistics.mean(before), meanAfter = Statistics.mean(after);
+				if(meanBefore == 0 || meanAfter == 0) continue;
+
+				double change = (meanAfter - meanBefore) / meanBefore;
+				double p = Statistics.welchTest(before, after);
+				String verdict = verdict(change, p);
+				if("REGRESSION".equals(verdict)) regressions++;
+
+				System.out.println("|   " + test.getKey() + "   |   " + framework.getKey() + "   |   " + RunPerformanceTest.df.format(meanBefore) + "   |   " +
+						RunPerformanceTest.df.format(meanAfter) + "   |   " + (change > 0 ? "+" : "") + RunPerformanceTest.df.format(change * 100) + "%   |   " +
+						(Double.isNaN(p) ? "-" : pf.format(p)) + "   |   " + verdict + "   |");
+			}
+		}
+
+		System.out.println("-- " + regressions + " significant regressions (p < " + alpha + ", drop > " + RunPerformanceTest.df.format(threshold * 100) + "%)");
+	}
+
+	//significant and larger than threshold
+	String verdict(double change, double p){
+		if(Double.isNaN(p)) return "too few samples";
+		if(p >= alpha || Math.abs(change) <= threshold) return "same";
+		return change < 0 ? "REGRESSION" : "improvement";
+	}
+
+	//runs are comparable when only the revision differs, returns the other components which differ
+	static String printKey(JSONObject base, JSONObject run){
+		StringBuffer differs = new StringBuffer();
+		String[] names = new String[]{"revision", "dialect", "java", "config"};
+		for (int i = 0; i < names.length; i++) {
+			String before = base.getString(names[i]), after = run.getString(names[i]);
+			boolean same = before == null ? after == null : before.equals(after);
+			System.out.println("--" + names[i] + ": " + before + (same ? "" : " -> " + after));
+			if(!same && i > 0) differs.append(differs.length() > 0 ? ", " : "").append(names[i]);
+		}
+		return differs.toString();
+	}
+
+	static double[] toArray(JSONArray values){
+		if(values == null) return new double[0];
+
+		double[] array = new double[values.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values.getDoubleValue(i);
+		}
+		return array;
+	}
+
+	//----------START COMPARING
+	public static void main(String[] args) throws Exception {
+		RunCompare compare = new RunCompare(new Arguments(args));
+		compare.run();
+		if(compare.getRegressions() > 0)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,196 @@
+package org.rex.db.test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.rex.db.test.performance.Dao;
+import org.rex.db.test.performance.Histogram;
+import org.rex.db.test.performance.Scenario;
+
+/**
+ * Runs every operation from N worker threads at the same time, N = 1, 2, 4 ... up to maxThreads.
+ * Reports aggregate throughput, latency and scaling efficiency, which is throughput(N) / (N * throughput(1)).
+ */
+public class RunConcurrentTest extends RunPerformanceTest{
+
+	private int maxThreads = Runtime.getRuntime().availableProcessors();
+
+	public RunConcurrentTest(int fast, int loop, int maxThreads) throws Exception{
+		super(fast, loop);
+		this.maxThreads = maxThreads;
+	}
+
+	//1, 2, 4 ... and maxThreads
+	public int[] getThreadCounts(){
+		List<Integer> counts = new ArrayList<Integer>();
+		for (int i = 1; i < maxThreads; i *= 2) {
+			counts.add(i);
+		}
+		counts.add(maxThreads);
+
+		int[] threads = new int[counts.size()];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = counts.get(i);
+		}
+		return threads;
+	}
+
+	/**
+	 * runs the operation from the given threads, each thread runs it 'loop' times.
+	 * returns costs in nanoseconds, latencies of all threads are merged into the histogram.
+	 */
+	public long concurrentOper(final Scenario scenario, final Dao dao, final int rows, int threads, final int loop, Histogram histogram) throws Exception{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch ready = new CountDownLatch(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		try{
+			List<Future<Histogram>> futures = new ArrayList<Future<Histogram>>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(new Callable<Histogram>(){
+					public Histogram call() throws Exception {
+						Histogram local = new Histogram();
+						ready.countDown();
+						start.await();
+						for (int j = 0; j < loop; j++) {
+							oper(scenario, dao, rows, local);
+						}
+						return local;
+					}
+				}));
+			}
+
+			ready.await();
+			long begin = System.nanoTime();
+			start.countDown();
+			for (int i = 0; i < futures.size(); i++) {
+				try{
+					histogram.merge(futures.get(i).get());
+				}catch(ExecutionException e){
+					if(e.getCause() instanceof Exception)
+						throw (Exception)e.getCause();
+					throw e;
+				}
+			}
+			return System.nanoTime() - begin;
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	//test an operation with all thread counts
+	public void concurrentOpers(String testName, Scenario scenario, int rows, Map<String, double[]> results) throws Exception{
+		int[] threadCounts = getThreadCounts();
+		double[] single = new double[FRAMEWORKS.length];
+
+		System.out.println("-------------- testing "+testName+" concurrently (Affected Rows per second, all threads) ------------");
+		System.out.print("warming up testing "+testName+"...");
+		for (int i = 0; i < 5; i++) {
+			for (int j = 0; j < FRAMEWORKS.length; j++) {
+				if(isEnabled(j)) oper(scenario, getDao(j), rows);
+			}
+			reset(scenario);
+			System.out.print("...");
+		}
+		System.out.println();
+
+		System.out.println("| THREADS |  FRAMEWORK  |  ROWS/S  | EFFICIENCY |  p50(us)  |  p99(us)  | p99.9(us) |  max(us)  |");
+		System.out.println("| ------- | ----------- | -------- | ---------- | --------- | --------- | --------- | --------- |");
+
+		for (int i = 0; i < threadCounts.length; i++) {
+			int threads = threadCounts[i];
+			double[] values = new double[FRAMEWORKS.length];
+			Histogram[] histograms = new Histogram[FRAMEWORKS.length];
+
+			for (int j = 0; j < FRAMEWORKS.length; j++) {
+				histograms[j] = new Histogram();
+				if(!isEnabled(j)) continue;
+
+				long costs = concurrentOper(scenario, getDao(j), rows, threads, loop, histograms[j]);
+				values[j] = throughput(rows * threads * loop, costs);
+				if(i == 0) single[j] = values[j] / threads;
+				reset(scenario);
+
+				double efficiency = single[j] == 0 ? 0 : values[j] / (threads * single[j]) * 100;
+				System.out.println("|   " + threads + "   |   " + FRAMEWORKS[j] + "   |   " + df.format(values[j]) + "   |   " +
+						df.format(efficiency) + "%   |   " + micros(histograms[j].getValueAtPercentile(50)) + "   |   " +
+						micros(histograms[j].getValueAtPercentile(99)) + "   |   " + micros(histograms[j].getValueAtPercentile(99.9)) + "   |   " +
+						micros(histograms[j].getMax()) + "   |");
+			}
+
+			String key = testName + "-" + threads + "threads";
+			results.put(key, values);
+			latencies.put(key, histograms);
+		}
+	}
+
+	//the result store needs the throughput of every iteration, which concurrent runs do not measure
+	@Override
+	public void configure(Arguments args){
+		super.configure(args);
+		if(store){
+			System.out.println("argument 'store' is not supported in concurrent mode, results are not saved.");
+			store = false;
+		}
+		//threads of a concurrent run share one JVM
+		if(args.getBoolean("fork", false))
+			System.out.println("argument 'fork' is not supported in concurrent mode, all frameworks run in this JVM.");
+	}
+
+	@Override
+	public void run() throws Exception {
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+
+		deleteRows();
+
+		System.out.println("===================== running concurrent performance test ======================");
+		System.out.println("--threads: " + join(getThreadCounts()));
+
+		for (int i = 0; i < scenarios.length; i++) {
+			Scenario scenario = Scenario.get(scenarios[i]);
+			setUp(scenario);
+			try{
+				concurrentOpers(scenarios[i], scenario, rows(scenario, 1), results);
+			}finally{
+				tearDown(scenario);
+			}
+		}
+
+		printResult(results, latencies);
+		printJson(results, latencies);
+	}
+
+	//scenarios changing the table start again from a prepared table
+	void reset(Scenario scenario) throws Exception{
+		if(!scenario.isReadOnly()){
+			tearDown(scenario);
+			setUp(scenario);
+		}
+	}
+
+	static String join(int[] values){
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < values.length; i++) {
+			if(i > 0) sb.append(", ");
+			sb.append(values[i]);
+		}
+		return sb.toString();
+	}
+
+	//----------START TESTING
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		RunSQLScript.startEmbedded(arguments);
+		RunConcurrentTest test = new RunConcurrentTest(arguments.getInt("speed", 10), arguments.getInt("loop", 10),
+				arguments.getInt("threads", Runtime.getRuntime().availableProcessors()));
+		test.configure(arguments);
+		test.run();
+	}
+}
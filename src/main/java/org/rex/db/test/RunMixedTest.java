@@ -0,0 +1,287 @@
+package org.rex.db.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.rex.db.test.performance.ConcurrentHistogram;
+import org.rex.db.test.performance.Dao;
+import org.rex.db.test.performance.Histogram;
+
+/**
+ * Mixed OLTP workload. Threads run point lookups, short range reads, inserts, updates and deletes at the same time
+ * in a weighted mix, against a table of steady size: inserts append new keys and deletes remove the oldest ones,
+ * lookups and updates pick random keys of the rows alive. Reports throughput and latency of every operation type.
+ * The table keeps its size only when the insert and delete weights are equal, deletes on an empty table are skipped.
+ *
+ * arguments: mix=get:60,getPage:20,update:10,insert:5,delete:5 tableRows=10000 threads=(2 * processors) duration=10(s)
+ *            warmupTime=2(s) pageSize=20
+ */
+public class RunMixedTest extends RunPerformanceTest{
+
+	public static final String GET = "get", GET_PAGE = "getPage", INSERT = "insert", UPDATE = "update", DELETE = "delete";
+
+	static final String[] OPERATIONS = new String[]{GET, GET_PAGE, INSERT, UPDATE, DELETE};
+
+	static final int INSERT_BATCH = 10000;
+
+	private String[] operations;
+	private int[] weights;
+	private int tableRows = 10000, threads = Runtime.getRuntime().availableProcessors() * 2, duration = 10, warmupTime = 2, pageSize = 20;
+
+	//oldest key alive, deletes remove rows from here and inserts append after Dao.studentId
+	private final AtomicLong oldest = new AtomicLong();
+
+	//deletes skipped because all rows were deleted
+	private final AtomicLong skipped = new AtomicLong();
+
+	public RunMixedTest(Arguments args) throws Exception{
+		super();
+		configure(args);
+		tableRows = args.getInt("tableRows", tableRows);
+		threads = args.getInt("threads", threads);
+		duration = args.getInt("duration", duration);
+		warmupTime = args.getInt("warmupTime", warmupTime, 0);
+		pageSize = args.getInt("pageSize", pageSize);
+		parseMix(args.getList("mix", new String[]{"get:60", "getPage:20", "update:10", "insert:5", "delete:5"}));
+	}
+
+	//operation:weight pairs
+	void parseMix(String[] mix) throws Exception{
+		operations = new String[mix.length];
+		weights = new int[mix.length];
+		for (int i = 0; i < mix.length; i++) {
+			int index = mix[i].indexOf(':');
+			operations[i] = index == -1 ? mix[i] : mix[i].substring(0, index);
+			try{
+				weights[i] = index == -1 ? 1 : Integer.parseInt(mix[i].substring(index + 1));
+			}catch(NumberFormatException e){
+				throw new Exception("weight of '"+mix[i]+"' is not a number.");
+			}
+			if(weights[i] < 0)
+				throw new Exception("weight of '"+mix[i]+"' must not be less than 0.");
+			if(!Arrays.asList(OPERATIONS).contains(operations[i]))
+				throw new Exception("operation '"+operations[i]+"' not exist, available: "+Arrays.asList(OPERATIONS)+".");
+		}
+		if(sum(weights) == 0)
+			throw new Exception("weights of mix '"+Arrays.asList(mix)+"' must not all be 0.");
+	}
+
+	//--------------operations
+	//a random key of the rows alive
+	long key(Random random){
+		long first = oldest.get();
+		return first + random.nextInt((int)Math.max(Dao.studentId - first, 1));
+	}
+
+	//picks an operation by weight
+	int pick(Random random, int total){
+		int value = random.nextInt(total);
+		for (int i = 0; i < weights.length; i++) {
+			value -= weights[i];
+			if(value < 0) return i;
+		}
+		return weights.length - 1;
+	}
+
+	//returns false when the operation is skipped
+	boolean execute(Dao dao, String operation, Random random) throws Exception{
+		if(GET.equals(operation))
+			dao.get(key(random));
+		else if(GET_PAGE.equals(operation))
+			dao.getPageAfter(key(random), pageSize);
+		else if(INSERT.equals(operation))
+			dao.insert();
+		else if(UPDATE.equals(operation))
+			dao.update(key(random));
+		else
+			return delete(dao);
+		return true;
+	}
+
+	//deletes the oldest row, oldest never passes the newest key
+	boolean delete(Dao dao) throws Exception{
+		long key;
+		do{
+			key = oldest.get();
+			if(key >= Dao.studentId){
+				skipped.incrementAndGet();
+				return false;
+			}
+		}while(!oldest.compareAndSet(key, key + 1));
+
+		dao.delete(key);
+		return true;
+	}
+
+	/**
+	 * runs the mix on every thread for the given seconds, returns costs in nanoseconds
+	 */
+	long mix(final Dao dao, int seconds, final ConcurrentHistogram[] histograms, final AtomicLong[] errors) throws Exception{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch ready = new CountDownLatch(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		final long[] deadline = new long[1];
+		final int total = sum(weights);
+		try{
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			for (int i = 0; i < threads; i++) {
+				final int thread = i;
+				futures.add(executor.submit(new Callable<Object>(){
+					public Object call() throws Exception {
+						Random random = new Random(seed + thread);
+						ready.countDown();
+						start.await();
+						while(System.nanoTime() < deadline[0]){
+							int operation = pick(random, total);
+							long begin = System.nanoTime();
+							try{
+								if(!execute(dao, operations[operation], random)) continue;
+							}catch(Exception e){
+								if(errors[operation].getAndIncrement() == 0)
+									System.out.println("-- "+operations[operation]+" error: " + e.getMessage());
+								continue;
+							}
+							histograms[operation].record(System.nanoTime() - begin);
+						}
+						return null;
+					}
+				}));
+			}
+
+			ready.await();
+			long begin = System.nanoTime();
+			deadline[0] = begin + seconds * 1000000000L;
+			start.countDown();
+			for (int i = 0; i < futures.size(); i++) {
+				try{
+					futures.get(i).get();
+				}catch(ExecutionException e){
+					if(e.getCause() instanceof Exception)
+						throw (Exception)e.getCause();
+					throw e;
+				}
+			}
+			return System.nanoTime() - begin;
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	//table of tableRows rows, keys are consecutive
+	void prepare() throws Exception{
+		deleteRows();
+		System.out.println("------------------------- init "+tableRows+" rows --------------------------");
+		oldest.set(Dao.studentId);
+		for (int i = 0; i < tableRows; i += INSERT_BATCH) {
+			getUtilityDao().batchInsert(Math.min(INSERT_BATCH, tableRows - i));
+		}
+	}
+
+	static int sum(int[] values){
+		int sum = 0;
+		for (int i = 0; i < values.length; i++) {
+			sum += values[i];
+		}
+		return sum;
+	}
+
+	static ConcurrentHistogram[] newHistograms(int count){
+		ConcurrentHistogram[] histograms = new ConcurrentHistogram[count];
+		for (int i = 0; i < count; i++) {
+			histograms[i] = new ConcurrentHistogram();
+		}
+		return histograms;
+	}
+
+	static AtomicLong[] newCounters(int count){
+		AtomicLong[] counters = new AtomicLong[count];
+		for (int i = 0; i < count; i++) {
+			counters[i] = new AtomicLong();
+		}
+		return counters;
+	}
+
+	@Override
+	public void run() throws Exception {
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+		double[][] values = new double[operations.length + 1][FRAMEWORKS.length];
+		Histogram[][] histograms = new Histogram[operations.length + 1][FRAMEWORKS.length];
+
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < operations.length; i++) {
+			if(i > 0) sb.append(",");
+			sb.append(operations[i]).append(':').append(weights[i]);
+		}
+
+		System.out.println("===================== running mixed workload test ======================");
+		System.out.println("--mix: " + sb + ", rows: " + tableRows + ", threads: " + threads + ", duration: " + duration + " s");
+
+		try{
+			for (int i = 0; i < FRAMEWORKS.length; i++) {
+				for (int j = 0; j < histograms.length; j++) {
+					histograms[j][i] = new Histogram();
+				}
+				if(!isEnabled(i)) continue;
+
+				prepare();
+				if(warmupTime > 0){
+					System.out.println("warming up "+FRAMEWORKS[i]+"...");
+					mix(getDao(i), warmupTime, newHistograms(operations.length), newCounters(operations.length));
+				}
+
+				ConcurrentHistogram[] concurrent = newHistograms(operations.length);
+				AtomicLong[] errors = newCounters(operations.length);
+				skipped.set(0);
+				long costs = mix(getDao(i), duration, concurrent, errors);
+
+				System.out.println("-------------- mixed workload of "+FRAMEWORKS[i]+" ------------");
+				System.out.println("|   OPER   |  OPS/S  |  p50(us)  |  p99(us)  | p99.9(us) |  max(us)  | ERRORS |");
+				System.out.println("| -------- | ------- | --------- | --------- | --------- | --------- | ------ |");
+				for (int j = 0; j < operations.length; j++) {
+					Histogram histogram = concurrent[j].getHistogram();
+					histograms[j][i] = histogram;
+					histograms[operations.length][i].merge(histogram);
+					values[j][i] = throughput((int)histogram.getCount(), costs);
+					values[operations.length][i] += values[j][i];
+
+					System.out.println("|   " + operations[j] + "   |   " + df.format(values[j][i]) + "   |   " + micros(histogram.getValueAtPercentile(50)) + "   |   " +
+							micros(histogram.getValueAtPercentile(99)) + "   |   " + micros(histogram.getValueAtPercentile(99.9)) + "   |   " +
+							micros(histogram.getMax()) + "   |   " + errors[j].get() + "   |");
+				}
+				System.out.println("--rows after test: " + (Dao.studentId - oldest.get()));
+				if(skipped.get() > 0)
+					System.out.println("-- " + skipped.get() + " deletes skipped on an empty table, the delete weight should not exceed the insert weight.");
+			}
+		}finally{
+			deleteRows();
+		}
+
+		for (int i = 0; i < operations.length; i++) {
+			results.put("mixed-" + operations[i], values[i]);
+			latencies.put("mixed-" + operations[i], histograms[i]);
+		}
+		results.put("mixed", values[operations.length]);
+		latencies.put("mixed", histograms[operations.length]);
+
+		printResult(results, latencies);
+		printJson(results, latencies);
+	}
+
+	//----------START TESTING
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		RunSQLScript.startEmbedded(arguments);
+		new RunMixedTest(arguments).run();
+	}
+}
@@ -0,0 +1,84 @@
+package org.rex.db.test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.rex.db.test.performance.Dao;
+import org.rex.db.test.performance.MultiRowInsertScenario;
+import org.rex.db.test.performance.Scenario;
+
+/**
+ * Compares multi-row INSERT statements with JDBC batches. Runs the batchInsert scenario, single row statements sent in a
+ * batch, then the multiRowInsert scenario for every width, rows per statement. Widths are capped by the bind parameter
+ * limit of the dialect. Reports rows per second and statements executed by an operation of every strategy, drivers
+ * without rewriting of batches, e.g. rewriteBatchedStatements of MySQL, send every statement of a batch.
+ *
+ * arguments: widths=1,10,100,1000 loop=10 warmup=5
+ */
+public class RunMultiRowInsertTest extends RunPerformanceTest{
+
+	private int[] widths = new int[]{1, 10, 100, 1000};
+
+	public RunMultiRowInsertTest(Arguments args) throws Exception{
+		super();
+		loop = args.getInt("loop", 10);
+		configure(args);
+		widths = args.getInts("widths", widths);
+	}
+
+	@Override
+	public void run() throws Exception {
+		MultiRowInsertScenario scenario = (MultiRowInsertScenario)Scenario.get("multiRowInsert");
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+		Map<String, String> labels = new LinkedHashMap<String, String>();
+
+		deleteRows();
+		System.out.println("===================== running multi-row insert test ======================");
+		System.out.println("--widths: " + RunTransactionTest.join(widths) + ", max parameters: " + Dao.getMaxParameters() + ", max width: " + Dao.getMaxInsertWidth() + ", loop: " + loop);
+
+		int rows = Math.max(Scenario.get("batchInsert").getRows() / fast, 1);
+		runScenario("batchInsert", results);
+		labels.put("batchInsert", "|   batch   |   1   |   " + rows + "   |");
+
+		//widths over the limit are capped, run each width once
+		List<Integer> done = new ArrayList<Integer>();
+		for (int i = 0; i < widths.length; i++) {
+			if(widths[i] < 1) continue;
+			scenario.setWidth(widths[i]);
+			int width = scenario.getWidth();
+			if(done.contains(width)) continue;
+			done.add(width);
+
+			String testName = "multiRowInsert-" + width;
+			runScenario(testName, scenario, 1, results);
+			labels.put(testName, "|   multi-row   |   " + width + "   |   " + ((Math.max(scenario.getRows() / fast, 1) + width - 1) / width) + "   |");
+		}
+
+		System.out.println("================== printing throughput (rows per second) ==================");
+		System.out.println("|  STRATEGY  |  WIDTH  |  STATEMENTS  |     rexdb     |     jdbc    |  hibernate |  mybatis |  spring |");
+		System.out.println("| ---------- | ------- | ------------ | ------------- | ----------- | ---------- | -------- | ------- |");
+		for (Map.Entry<String, String> entry : labels.entrySet()) {
+			double[] values = results.get(entry.getKey());
+			StringBuffer sb = new StringBuffer(entry.getValue());
+			for (int i = 0; i < values.length; i++) {
+				sb.append("   ").append(values[i] == 0 ? "-" : df.format(values[i])).append("   |");
+			}
+			System.out.println(sb);
+		}
+
+		printResult(results, latencies);
+		printAllocation(allocations);
+		printJson(results, latencies);
+	}
+
+	//----------START TESTING
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		RunSQLScript.startEmbedded(arguments);
+		RunMultiRowInsertTest test = new RunMultiRowInsertTest(arguments);
+		test.fast = arguments.getInt("speed", 1);
+		test.run();
+	}
+}
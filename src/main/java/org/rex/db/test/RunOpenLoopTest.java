@@ -0,0 +1,171 @@
+package org.rex.db.test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.rex.db.test.performance.ConcurrentHistogram;
+import org.rex.db.test.performance.Dao;
+import org.rex.db.test.performance.Histogram;
+import org.rex.db.test.performance.Scenario;
+
+/**
+ * Open loop load test. Operations are issued at a constant arrival rate whether or not earlier operations have finished,
+ * and latency is measured from the intended start time, so stalls are not hidden by coordinated omission.
+ * The rate is stepped up until the p99 latency breaks the target, the last passing rate is the maximum sustainable throughput.
+ *
+ * arguments: oper=insert,getList rate=100 step=1.5 maxRate=100000 duration=10(s) p99=50(ms) workers=64 rows=10 tableRows=100
+ */
+public class RunOpenLoopTest extends RunPerformanceTest{
+
+	private int rate = 100, maxRate = 100000, duration = 10, p99 = 50, workers = 64, rows = 10, tableRows = 100;
+	private double step = 1.5;
+	private String[] operations = new String[]{"insert", "getList"};
+
+	public RunOpenLoopTest(Arguments args) throws Exception{
+		super();
+		rate = args.getInt("rate", rate);
+		maxRate = args.getInt("maxRate", maxRate);
+		duration = args.getInt("duration", duration);
+		p99 = args.getInt("p99", p99);
+		workers = args.getInt("workers", workers);
+		rows = args.getInt("rows", rows);
+		tableRows = args.getInt("tableRows", tableRows);
+		step = args.getDouble("step", step);
+		operations = args.getList("oper", operations);
+		if(step <= 1){
+			System.out.println("argument 'step' must be greater than 1.");
+			step = 1.5;
+		}
+	}
+
+	/**
+	 * issues operations at the given rate for 'duration' seconds.
+	 * returns operations completed per second, latencies from intended start and from actual start are recorded.
+	 */
+	double step(final Scenario operation, final Dao dao, int rate, final ConcurrentHistogram latency, final ConcurrentHistogram service,
+			final AtomicLong errors) throws Exception{
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		final AtomicLong completed = new AtomicLong();
+		final int opRows = operation.isRowByRow() ? 1 : rows;
+
+		long interval = 1000000000L / rate, total = (long)rate * duration;
+		long start = System.nanoTime();
+		try{
+			for (long i = 0; i < total; i++) {
+				final long intended = start + i * interval;
+				long wait = intended - System.nanoTime();
+				if(wait > 0)
+					LockSupport.parkNanos(wait);
+
+				executor.execute(new Runnable(){
+					public void run() {
+						long begin = System.nanoTime();
+						try{
+							oper(operation, dao, opRows);
+							completed.incrementAndGet();
+						}catch(Exception e){
+							if(errors.getAndIncrement() == 0)
+								System.out.println("-- error: " + e.getMessage());
+						}
+						long end = System.nanoTime();
+						latency.record(end - intended);
+						service.record(end - begin);
+					}
+				});
+			}
+		}finally{
+			executor.shutdown();
+		}
+
+		//operations still queued are waited for, their latency keeps growing from the intended start
+		if(!executor.awaitTermination(duration * 3L, TimeUnit.SECONDS)){
+			long dropped = executor.shutdownNow().size();
+			errors.addAndGet(dropped);
+			System.out.println("-- backlog did not drain, " + dropped + " operations dropped.");
+		}
+		return throughput((int)completed.get(), System.nanoTime() - start);
+	}
+
+	//steps the rate up until p99 breaks the target, returns the maximum sustainable rate
+	double sweep(String testName, Scenario operation, Dao dao, Histogram[] sustained, int framework) throws Exception{
+		System.out.println("-------------- "+testName+" of "+FRAMEWORKS[framework]+" (p99 target "+p99+" ms) ------------");
+		System.out.println("|  TARGET/S  |  ACHIEVED/S  |  p50(us)  |  p99(us)  | p99.9(us) |  max(us)  | SERVICE p99(us) | ERRORS | PASS |");
+		System.out.println("| ---------- | ------------ | --------- | --------- | --------- | --------- | --------------- | ------ | ---- |");
+
+		double sustainable = 0;
+		for (double target = rate; target <= maxRate; target *= step) {
+			ConcurrentHistogram latency = new ConcurrentHistogram(), service = new ConcurrentHistogram();
+			AtomicLong errors = new AtomicLong();
+
+			double achieved = step(operation, dao, (int)target, latency, service, errors);
+			Histogram histogram = latency.getHistogram();
+			boolean pass = errors.get() == 0 && histogram.getValueAtPercentile(99) <= p99 * 1000000L && achieved >= target * 0.95;
+
+			System.out.println("|   " + (int)target + "   |   " + df.format(achieved) + "   |   " + micros(histogram.getValueAtPercentile(50)) + "   |   " +
+					micros(histogram.getValueAtPercentile(99)) + "   |   " + micros(histogram.getValueAtPercentile(99.9)) + "   |   " +
+					micros(histogram.getMax()) + "   |   " + micros(service.getHistogram().getValueAtPercentile(99)) + "   |   " +
+					errors.get() + "   |   " + (pass ? "yes" : "no") + "   |");
+
+			if(!operation.isReadOnly())
+				prepare(operation);
+			if(!pass)
+				break;
+
+			sustainable = achieved;
+			sustained[framework] = histogram;
+		}
+		return sustainable;
+	}
+
+	//empty table set up for the scenario, with tableRows rows if it needs rows
+	void prepare(Scenario operation) throws Exception{
+		deleteRows();
+		operation.setUp(getUtilityDao(), operation.getTableRows() > 0 ? tableRows : 0);
+	}
+
+	@Override
+	public void run() throws Exception {
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+
+		System.out.println("===================== running open loop test ======================");
+		System.out.println("--start rate: "+rate+"/s x "+step+", step duration: "+duration+" s, p99 target: "+p99+" ms, workers: "+workers);
+
+		for (int i = 0; i < operations.length; i++) {
+			Scenario operation = Scenario.get(operations[i]);
+			double[] values = new double[FRAMEWORKS.length];
+			Histogram[] histograms = new Histogram[FRAMEWORKS.length];
+
+			prepare(operation);
+			try{
+				for (int j = 0; j < FRAMEWORKS.length; j++) {
+					histograms[j] = new Histogram();
+					if(isEnabled(j))
+						values[j] = sweep(operations[i], operation, getDao(j), histograms, j);
+				}
+			}finally{
+				operation.tearDown(getUtilityDao());
+				deleteRows();
+			}
+
+			String key = operations[i] + "-p99-" + p99 + "ms";
+			results.put(key, values);
+			latencies.put(key, histograms);
+		}
+
+		System.out.println("================== maximum sustainable throughput (operations per second) ==================");
+		printResult(results, latencies);
+		printJson(results, latencies);
+	}
+
+	//----------START TESTING
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		RunSQLScript.startEmbedded(arguments);
+		new RunOpenLoopTest(arguments).run();
+	}
+}
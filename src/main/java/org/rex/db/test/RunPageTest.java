@@ -0,0 +1,148 @@
+package org.rex.db.test;
+
+import java.text.DecimalFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.rex.db.test.performance.Dao;
+import org.rex.db.test.performance.Histogram;
+
+/**
+ * Pages through a large table at increasing depths. Offset paging skips rows with the paging sql of the dialect
+ * (LimitHandler of rexdb, also used by jdbc and spring), setFirstResult of hibernate and RowBounds of mybatis.
+ * Keyset paging seeks the page by the last key of the previous page. Reports latency of a page against its depth.
+ *
+ * arguments: tableRows=100000 pageSize=20 depth=0,0.01,0.1,0.5,0.9 (fractions of the table) mode=offset,keyset loop=20 warmup=5
+ */
+public class RunPageTest extends RunPerformanceTest{
+
+	public static final String MODE_OFFSET = "offset", MODE_KEYSET = "keyset";
+
+	static final int INSERT_BATCH = 10000;
+
+	static DecimalFormat pf = new DecimalFormat("0.##");
+
+	private int tableRows = 100000, pageSize = 20;
+	private double[] depths = new double[]{0, 0.01, 0.1, 0.5, 0.9};
+	private String[] modes = new String[]{MODE_OFFSET, MODE_KEYSET};
+
+	public RunPageTest(Arguments args) throws Exception{
+		super();
+		loop = args.getInt("loop", 20);
+		configure(args);
+		tableRows = args.getInt("tableRows", tableRows);
+		pageSize = args.getInt("pageSize", pageSize);
+		modes = args.getList("mode", modes);
+
+		String[] values = args.getList("depth", null);
+		if(values != null){
+			try{
+				double[] parsed = new double[values.length];
+				for (int i = 0; i < values.length; i++) {
+					parsed[i] = Double.parseDouble(values[i]);
+					if(parsed[i] < 0 || parsed[i] > 1) throw new Exception();
+				}
+				depths = parsed;
+			}catch(Exception e){
+				System.out.println("argument 'depth' must be a list of fractions between 0 and 1.");
+			}
+		}
+	}
+
+	//gets a page, offset is the depth for offset paging, the key is the last key of the previous page for keyset paging
+	List page(Dao dao, String mode, int offset, long key) throws Exception{
+		return MODE_KEYSET.equals(mode) ? dao.getPageAfter(key, pageSize) : dao.getPage(offset, pageSize);
+	}
+
+	//latency of a page at the depth
+	double[] pages(String mode, int offset, Histogram[] histograms) throws Exception{
+		//keys are positive
+		long key = offset == 0 ? 0 : ((Student)getUtilityDao().getPage(offset - 1, 1).get(0)).getStudentId();
+		double[] costs = new double[FRAMEWORKS.length];
+
+		for (int i = 0; i < FRAMEWORKS.length; i++) {
+			histograms[i] = new Histogram();
+			if(!isEnabled(i)) continue;
+
+			List result = page(getDao(i), mode, offset, key);
+			if(result.size() != Math.min(pageSize, tableRows - offset))
+				System.out.println("-- "+FRAMEWORKS[i]+" returned "+result.size()+" rows of page at "+offset+".");
+			for (int j = 0; j < warmup; j++) {
+				page(getDao(i), mode, offset, key);
+			}
+		}
+
+		for (int i = 0; i < loop; i++) {
+			int[] sequence = sequence(i);
+			for (int j = 0; j < sequence.length; j++) {
+				int framework = sequence[j];
+				if(!isEnabled(framework)) continue;
+
+				long start = System.nanoTime();
+				page(getDao(framework), mode, offset, key);
+				long cost = System.nanoTime() - start;
+				histograms[framework].record(cost);
+				costs[framework] += cost;
+			}
+		}
+
+		double[] values = new double[FRAMEWORKS.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = throughput(pageSize * loop, costs[i]);
+		}
+		return values;
+	}
+
+	@Override
+	public void run() throws Exception {
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+		int rows = Math.max(tableRows / fast, pageSize);
+
+		deleteRows();
+		System.out.println("------------------------- init "+rows+" rows --------------------------");
+		for (int i = 0; i < rows; i += INSERT_BATCH) {
+			getUtilityDao().batchInsert(Math.min(INSERT_BATCH, rows - i));
+		}
+		tableRows = rows;
+
+		System.out.println("===================== running pagination test ======================");
+		System.out.println("--rows: " + rows + ", page size: " + pageSize + ", loop: " + loop);
+		try{
+			for (int i = 0; i < modes.length; i++) {
+				System.out.println("-------------- "+modes[i]+" paging (p50/p99 microseconds per page) ------------");
+				System.out.println("|   DEPTH   |   OFFSET   |     rexdb     |     jdbc    |  hibernate |  mybatis |  spring |");
+				System.out.println("| --------- | ---------- | ------------- | ----------- | ---------- | -------- | ------- |");
+
+				for (int j = 0; j < depths.length; j++) {
+					int offset = Math.min((int)(rows * depths[j]), rows - pageSize);
+					String testName = "page-" + modes[i] + "-" + pf.format(depths[j] * 100) + "%";
+					Histogram[] histograms = new Histogram[FRAMEWORKS.length];
+					results.put(testName, pages(modes[i], offset, histograms));
+					latencies.put(testName, histograms);
+
+					StringBuffer sb = new StringBuffer("|   " + pf.format(depths[j] * 100) + "%   |   " + offset + "   |");
+					for (int k = 0; k < histograms.length; k++) {
+						sb.append("   ").append(micros(histograms[k].getValueAtPercentile(50))).append('/')
+							.append(micros(histograms[k].getValueAtPercentile(99))).append("   |");
+					}
+					System.out.println(sb);
+				}
+			}
+		}finally{
+			deleteRows();
+		}
+
+		printResult(results, latencies);
+		printJson(results, latencies);
+	}
+
+	//----------START TESTING
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		RunSQLScript.startEmbedded(arguments);
+		RunPageTest test = new RunPageTest(arguments);
+		test.fast = arguments.getInt("speed", 1);
+		test.run();
+	}
+}
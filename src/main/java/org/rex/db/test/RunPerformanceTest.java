@@ -1,37 +1,76 @@
 package org.rex.db.test;
 
+import java.io.File;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
-import org.rex.db.configuration.Configuration;
-import org.rex.db.exception.DBException;
+import org.rex.db.test.performance.Allocation;
 import org.rex.db.test.performance.Dao;
+import org.rex.db.test.performance.FlightRecorder;
+import org.rex.db.test.performance.Histogram;
 import org.rex.db.test.performance.HibernateDao;
 import org.rex.db.test.performance.JdbcDao;
+import org.rex.db.test.performance.JvmFork;
 import org.rex.db.test.performance.MybatisDao;
+import org.rex.db.test.performance.ResultStore;
 import org.rex.db.test.performance.RexdbDao;
+import org.rex.db.test.performance.Scenario;
 import org.rex.db.test.performance.SpringDao;
+import org.rex.db.test.performance.Statistics;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
 
 public class RunPerformanceTest implements Runner{
 	
 	static DecimalFormat df =new DecimalFormat("#.00");  
 	
-	private int fast = 1, loop = 50;
+	protected int fast = 1, loop = 50;
 	
-	//--operation
-	public static final int OPER_INSERT = 0;
-	public static final int OPER_INSERT_PS = 1;
-	public static final int OPER_BATCH = 2;
-	public static final int OPER_BATCH_PS = 3;
-	public static final int OPER_QUERY_LIST = 4;
-	public static final int OPER_QUERY_MAPLIST = 5;
-
+	//--adaptive mode, iterates until the confidence interval is within the relative error, or the time budget(seconds) runs out
+	public static final int MIN_ADAPTIVE_LOOP = 5;
+	protected double relativeError = 0, confidence = 0.95;
+	protected int budget = 300;
+	
+	//--execution order of frameworks in every iteration: fixed, random, or latin (balanced latin square)
+	public static final String ORDER_FIXED = "fixed", ORDER_RANDOM = "random", ORDER_LATIN = "latin";
+	protected String order = ORDER_FIXED;
+	protected long seed;
+	private Random orderRandom;
+	private int[] latinSymbols;
+	
+	//--warmup iterations before measuring, or WARMUP_AUTO to warm up every framework until it reaches steady state:
+	//  coefficient of variation of the last WARMUP_WINDOW throughputs below steadyCv, and JIT compilation below 1% of their time
+	public static final int WARMUP_AUTO = -1, WARMUP_WINDOW = 5;
+	protected int warmup = 5, maxWarmup = 200;
+	protected double steadyCv = 0.05;
+	
+	//--JDK flight recording of every framework after the measured iterations, written to profileDir
+	protected boolean profile = false;
+	protected int profileLoop = 0, profileTop = 10;
+	protected String profileDir = "results/jfr";
+	
+	//--saves results with the throughput of every iteration to the result store in storeDir
+	protected boolean store = false;
+	protected String storeDir = "results/store", config = "";
+	
+	//--payload sweep, every scenario runs once for every payload size(bytes) of the blob and/or clob column of new rows,
+	//  rows of an operation are scaled down to keep its payload within payloadBudget bytes
+	public static final String PAYLOAD_BOTH = "both", PAYLOAD_BLOB = "blob", PAYLOAD_CLOB = "clob";
+	protected int[] payloads;
+	protected String payloadColumn = PAYLOAD_BOTH;
+	protected int payloadBudget = 16 * 1024 * 1024;
+	
+	//--framework names, in the order of result columns
+	public static final String[] FRAMEWORKS = new String[]{"rexdb", "jdbc", "hibernate", "mybatis", "spring"};
 	
 	//--daos
 	Dao hibernateDao;
@@ -40,15 +79,44 @@ public class RunPerformanceTest implements Runner{
 	Dao rexdbDao;
 	Dao jdbcDao;
 	
+	//--latency histograms of the last run, in the order of rexdb, jdbc, hibernate, mybatis, spring
+	Map<String, Histogram[]> latencies = new LinkedHashMap<String, Histogram[]>();
+	
+	//--time to steady state(ms) of all frameworks, by test name
+	Map<String, double[]> warmups = new LinkedHashMap<String, double[]>();
+	
+	//--allocation and GC of all frameworks, by test name
+	Map<String, Allocation[]> allocations = new LinkedHashMap<String, Allocation[]>();
+	
+	//--rows in the table of the running scenario
+	private int tableRows;
+	
+	//--throughput of every measured iteration of all frameworks, by test name
+	Map<String, double[][]> throughputs = new LinkedHashMap<String, double[][]>();
+	
+	//--payload bytes transferred per row of the throughput of the payload sweep, by test name
+	Map<String, Double> payloadBytes = new LinkedHashMap<String, Double>();
+	
 	//--framework enabled
 	boolean hibernateEnabled, mybatisEnabled, springEnabled, rexdbEnabled, jdbcEnabled;
 	
+	//--scenarios to run, all default scenarios on the classpath by default
+	protected String[] scenarios = Scenario.getDefaultNames();
+	
 	public RunPerformanceTest() throws Exception{
-		hibernateDao = new HibernateDao();
-		mybatisDao = new MybatisDao();
-		springDao = SpringDao.getDao();
-		rexdbDao = new RexdbDao();
-		jdbcDao = new JdbcDao();
+		this(FRAMEWORKS);
+	}
+	
+	//loads the given frameworks only
+	public RunPerformanceTest(String[] frameworks) throws Exception{
+		for (int i = 0; i < frameworks.length; i++) {
+			Dao dao = createDao(frameworks[i]);
+			if("rexdb".equals(frameworks[i])) rexdbDao = dao;
+			else if("jdbc".equals(frameworks[i])) jdbcDao = dao;
+			else if("hibernate".equals(frameworks[i])) hibernateDao = dao;
+			else if("mybatis".equals(frameworks[i])) mybatisDao = dao;
+			else springDao = dao;
+		}
 		
 		testFrameworks();
 	}
@@ -60,6 +128,193 @@ public class RunPerformanceTest implements Runner{
 	}
 
 
+	//dao of a framework, in the order of FRAMEWORKS
+	public Dao getDao(int framework){
+		switch(framework){
+			case 0: return rexdbDao;
+			case 1: return jdbcDao;
+			case 2: return hibernateDao;
+			case 3: return mybatisDao;
+			default: return springDao;
+		}
+	}
+	
+	public boolean isEnabled(int framework){
+		switch(framework){
+			case 0: return rexdbEnabled;
+			case 1: return jdbcEnabled;
+			case 2: return hibernateEnabled;
+			case 3: return mybatisEnabled;
+			default: return springEnabled;
+		}
+	}
+	
+	//create dao of a framework
+	public static Dao createDao(String framework) throws Exception{
+		if("rexdb".equals(framework))
+			return new RexdbDao();
+		else if("jdbc".equals(framework))
+			return new JdbcDao();
+		else if("hibernate".equals(framework))
+			return new HibernateDao();
+		else if("mybatis".equals(framework))
+			return new MybatisDao();
+		else if("spring".equals(framework))
+			return SpringDao.getDao();
+		else
+			throw new Exception("framework '"+framework+"' not exist.");
+	}
+
+	//settings from command line arguments
+	public void configure(Arguments args){
+		setAdaptive(args.getDouble("ci", 0), args.getDouble("confidence", 0.95), args.getInt("budget", 300));
+		
+		long seed = System.currentTimeMillis();
+		try{
+			seed = Long.parseLong(args.get("seed", String.valueOf(seed)));
+		}catch(Exception e){
+			System.out.println("argument 'seed' is not a number.");
+		}
+		String order = args.get("order", ORDER_FIXED);
+		if(!ORDER_FIXED.equals(order) && !ORDER_RANDOM.equals(order) && !ORDER_LATIN.equals(order)){
+			System.out.println("argument 'order' must be one of fixed, random, latin.");
+			order = ORDER_FIXED;
+		}
+		setOrder(order, seed);
+		
+		scenarios = args.getList("scenario", scenarios);
+		for (Iterator<Scenario> iterator = Scenario.getScenarios().values().iterator(); iterator.hasNext();) {
+			iterator.next().configure(args);
+		}
+		
+		if("auto".equals(args.get("warmup", null)))
+			warmup = WARMUP_AUTO;
+		else
+			warmup = args.getInt("warmup", warmup, 0);
+		maxWarmup = args.getInt("maxWarmup", maxWarmup);
+		steadyCv = args.getDouble("steadyCv", steadyCv);
+		
+		profile = args.getBoolean("profile", profile);
+		profileLoop = args.getInt("profileLoop", profileLoop, 0);
+		profileTop = args.getInt("profileTop", profileTop);
+		profileDir = args.get("profileDir", profileDir);
+		
+		payloads = args.getInts("payload", payloads);
+		payloadColumn = args.get("payloadColumn", payloadColumn);
+		payloadBudget = args.getInt("payloadBudget", payloadBudget);
+		
+		store = args.getBoolean("store", store);
+		storeDir = args.get("storeDir", storeDir);
+		config = config(args);
+	}
+	
+	//configuration of a run in the result store, arguments which do not change results are left out
+	static String config(Arguments args){
+		List<String> excludes = Arrays.asList(new String[]{"seed", "child", "framework", "scenario", "store", "storedir", 
+				"profile", "profileloop", "profiletop", "profiledir"});
+		String[] values = args.toArgs();
+		Arrays.sort(values);
+		
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < values.length; i++) {
+			if(excludes.contains(values[i].substring(0, values[i].indexOf('=')))) continue;
+			if(sb.length() > 0) sb.append(' ');
+			sb.append(values[i]);
+		}
+		return sb.toString();
+	}
+	
+	//saves results to the result store
+	static void storeResults(String storeDir, String config, Map<String, double[]> results, Map<String, double[][]> throughputs) throws Exception{
+		String id = new ResultStore(storeDir).save(FRAMEWORKS, config, results, throughputs);
+		System.out.println("================== results saved as " + id + " in " + storeDir + " ==================");
+	}
+	
+	//enable adaptive mode
+	public void setAdaptive(double relativeError, double confidence, int budget){
+		this.relativeError = relativeError;
+		this.confidence = confidence;
+		this.budget = budget;
+	}
+	
+	public boolean isAdaptive(){
+		return relativeError > 0;
+	}
+	
+	//set execution order of frameworks, the same seed gives the same sequences
+	public void setOrder(String order, long seed){
+		this.order = order;
+		this.seed = seed;
+		this.orderRandom = new Random(seed);
+		this.latinSymbols = shuffle(FRAMEWORKS.length, orderRandom);
+	}
+	
+	//frameworks in the order of the iteration
+	public int[] sequence(int iteration){
+		if(ORDER_RANDOM.equals(order))
+			return shuffle(FRAMEWORKS.length, orderRandom);
+		
+		int[] sequence = new int[FRAMEWORKS.length];
+		if(ORDER_LATIN.equals(order)){
+			int[] row = williamsRow(FRAMEWORKS.length, iteration);
+			for (int i = 0; i < row.length; i++) {
+				sequence[i] = latinSymbols[row[i]];
+			}
+		}else{
+			for (int i = 0; i < sequence.length; i++) {
+				sequence[i] = i;
+			}
+		}
+		return sequence;
+	}
+	
+	/**
+	 * row of a Williams design, a latin square in which every symbol also follows every other symbol equally often.
+	 * there are n rows for even n, 2n rows for odd n, the rows repeat after that.
+	 */
+	static int[] williamsRow(int n, int iteration){
+		int rows = n % 2 == 0 ? n : 2 * n;
+		int r = iteration % rows;
+		
+		int[] row = new int[n];
+		for (int j = 0; j < n; j++) {
+			int first = j == 0 ? 0 : (j % 2 == 1 ? (j + 1) / 2 : n - j / 2);
+			row[j] = (first + r) % n;
+		}
+		
+		if(r >= n){
+			for (int j = 0; j < n / 2; j++) {
+				int tmp = row[j];
+				row[j] = row[n - 1 - j];
+				row[n - 1 - j] = tmp;
+			}
+		}
+		return row;
+	}
+	
+	static int[] shuffle(int n, Random random){
+		int[] values = new int[n];
+		for (int i = 0; i < n; i++) {
+			values[i] = i;
+		}
+		for (int i = n - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int tmp = values[i];
+			values[i] = values[j];
+			values[j] = tmp;
+		}
+		return values;
+	}
+	
+	static String sequenceString(int[] sequence){
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < sequence.length; i++) {
+			if(i > 0) sb.append('>');
+			sb.append(FRAMEWORKS[sequence[i]]);
+		}
+		return sb.toString();
+	}
+
 	//test framework
 	public void testFrameworks() throws Exception{
 		System.out.println("================== testing frameworks ==================");
@@ -72,6 +327,8 @@ public class RunPerformanceTest implements Runner{
 	}
 	
 	private boolean testFramework(Dao dao) throws Exception{
+		if(dao == null) return false;
+		
 		boolean enabled = false;
 		try{
 			dao.delete();
@@ -91,43 +348,48 @@ public class RunPerformanceTest implements Runner{
 		return enabled;
 	}
 	
+	//dao to prepare rows, rexdb unless it is not loaded
+	Dao getUtilityDao(){
+		if(rexdbDao != null) return rexdbDao;
+		for (int i = 0; i < FRAMEWORKS.length; i++) {
+			if(getDao(i) != null) return getDao(i);
+		}
+		return null;
+	}
+	
 	//remove all rows
 	public void deleteRows() throws Exception{
 		System.out.println("------------------------- deleting all rows --------------------------");
-		rexdbDao.delete();
+		getUtilityDao().delete();
 	}
 	
 	//insert rows for test
 	public void initRows(int rows) throws Exception{
 		System.out.println("------------------------- init "+rows+" rows --------------------------");
-		rexdbDao.batchInsert(rows);
+		getUtilityDao().batchInsert(rows);
 	}
 	
-	public long oper(int operation, Dao dao, int rows) throws Exception{
-		long start = System.currentTimeMillis();
-		if(OPER_BATCH == operation){
-			dao.batchInsert(rows);
-		}else if(OPER_BATCH_PS == operation){
-			dao.batchInsertPs(rows);
-		}else if(OPER_QUERY_LIST == operation){
-			dao.getList();
-		}else if(OPER_QUERY_MAPLIST == operation){
-			dao.getMapList();
-		}else if(OPER_INSERT == operation){
-			for (int i = 0; i < rows; i++) {
-				dao.insert();
-			}
-		}else if(OPER_INSERT_PS == operation){
-			for (int i = 0; i < rows; i++) {
-				dao.insertPs();
-			}
-		}
-		
-		return System.currentTimeMillis() - start;
+	public long oper(Scenario scenario, Dao dao, int rows) throws Exception{
+		return oper(scenario, dao, rows, null);
+	}
+	
+	//returns costs in nanoseconds, records latency of every call if histogram is not null
+	public long oper(Scenario scenario, Dao dao, int rows, Histogram histogram) throws Exception{
+		scenario.prepare(dao, rows);
+		long start = System.nanoTime();
+		scenario.execute(dao, rows, histogram);
+		return System.nanoTime() - start;
+	}
+	
+	//rows per second
+	static double throughput(int rows, double nanos){
+		return nanos == 0 ? 0 : rows / (nanos / 1000000000);
 	}
 	
 	//test insert performance
-	public double[] opers(String testName, int operation, int loop, int rows) throws Exception{
+	public double[] opers(String testName, Scenario scenario, int loop, int rows) throws Exception{
+		Histogram[] histograms = new Histogram[]{new Histogram(), new Histogram(), new Histogram(), new Histogram(), new Histogram()};
+		Allocation[] allocs = new Allocation[]{new Allocation(), new Allocation(), new Allocation(), new Allocation(), new Allocation()};
 		List<Double> timeRs = new ArrayList<Double>(),
 				timeJs = new ArrayList<Double>(),
 				timeHs = new ArrayList<Double>(),
@@ -135,38 +397,52 @@ public class RunPerformanceTest implements Runner{
 				timeSs = new ArrayList<Double>();
 		
 		System.out.println("-------------- testing "+testName+" (Affected Rows per second) ------------");
-		System.out.println("|      |     rexdb     |     jdbc     |    hibernate    |  mybatis   |  spring   |");
-		System.out.println("| ---- | ------------- | ------------ | --------------- | ---------- | --------- |");
-		
-		System.out.print("warming up testing "+testName+"...");
+		System.out.println("|      |     rexdb     |     jdbc     |    hibernate    |  mybatis   |  spring   |  order  |");
+		System.out.println("| ---- | ------------- | ------------ | --------------- | ---------- | --------- | ------- |");
 		
-		for (int i = 0; i < 5; i++) {
-			if(rexdbEnabled) oper(operation, rexdbDao, rows);
-			if(jdbcEnabled) oper(operation, jdbcDao, rows);	
-			if(hibernateEnabled) oper(operation, hibernateDao, rows);
-			if(mybatisEnabled) oper(operation, mybatisDao, rows);
-			if(springEnabled) oper(operation, springDao, rows);
-			
-			System.out.print("...");
+		if(warmup == WARMUP_AUTO){
+			double[] millis = new double[FRAMEWORKS.length];
+			int[] sequence = sequence(0);
+			for (int k = 0; k < sequence.length; k++) {
+				if(isEnabled(sequence[k])) millis[sequence[k]] = warmupSteady(scenario, sequence[k], rows) / 1000000d;
+			}
+			warmups.put(testName, millis);
+		}else{
+			System.out.print("warming up testing "+testName+"...");
+			for (int i = 0; i < warmup; i++) {
+				int[] sequence = sequence(i);
+				for (int k = 0; k < sequence.length; k++) {
+					if(isEnabled(sequence[k])) oper(scenario, getDao(sequence[k]), rows);
+				}
+				
+				System.out.print("...");
+			}
+			System.out.println();
 		}
-		System.out.println();
 		
 		
-		for (int i = 0; i < loop; i++) {
-			double h = 0, m = 0, r = 0, j = 0, s = 0;
+		//allocation is divided by rows an operation reads or writes, a query of the table reads the rows of the table
+		int touched = scenario.isReadOnly() && !scenario.isRowByRow() && tableRows > 0 ? tableRows : rows;
+		long deadline = System.nanoTime() + budget * 1000000000L;
+		for (int i = 0; isAdaptive() ? !converged(i, deadline, timeRs, timeJs, timeHs, timeMs, timeSs) : i < loop; i++) {
+			double[] costs = new double[FRAMEWORKS.length];
 			double timeH, timeM, timeJ, timeR, timeS;
 			
-			if(rexdbEnabled) r = oper(operation, rexdbDao, rows);
-			if(jdbcEnabled) j = oper(operation, jdbcDao, rows);	
-			if(hibernateEnabled) h = oper(operation, hibernateDao, rows);
-			if(mybatisEnabled) m = oper(operation, mybatisDao, rows);
-			if(springEnabled) s = oper(operation, springDao, rows);
+			int[] sequence = sequence(i);
+			for (int k = 0; k < sequence.length; k++) {
+				int framework = sequence[k];
+				if(isEnabled(framework)){
+					allocs[framework].start();
+					costs[framework] = oper(scenario, getDao(framework), rows, histograms[framework]);
+					allocs[framework].stop(touched);
+				}
+			}
 			
-			timeR = r == 0 ? 0 : rows/(r/1000);
-			timeJ = j == 0 ? 0 : rows/(j/1000);
-			timeH = h == 0 ? 0 : rows/(h/1000);
-			timeM = m == 0 ? 0 : rows/(m/1000);
-			timeS = s == 0 ? 0 : rows/(s/1000);
+			timeR = throughput(rows, costs[0]);
+			timeJ = throughput(rows, costs[1]);
+			timeH = throughput(rows, costs[2]);
+			timeM = throughput(rows, costs[3]);
+			timeS = throughput(rows, costs[4]);
 			
 			timeRs.add(timeR);
 			timeJs.add(timeJ);
@@ -175,36 +451,246 @@ public class RunPerformanceTest implements Runner{
 			timeSs.add(timeS);
 			
 			System.out.println("|   " + (i + 1) + "  |     " + df.format(timeR) + "     |    " + df.format(timeJ) + "     |      " + 
-						df.format(timeH) + "      |   " + df.format(timeM) + "    |   " + df.format(timeS) + "    |");
+						df.format(timeH) + "      |   " + df.format(timeM) + "    |   " + df.format(timeS) + "    |   " + sequenceString(sequence) + "   |");
 		}
 		
 		System.out.println("|  AVG |     " + avg(timeRs) + "     |    " + avg(timeJs) + "     |      " + 
 				avg(timeHs) + "      |   " + avg(timeMs) + "    |   " + avg(timeSs) + "    |");
+		System.out.println("|  CI  |     " + ci(timeRs) + "     |    " + ci(timeJs) + "     |      " + 
+				ci(timeHs) + "      |   " + ci(timeMs) + "    |   " + ci(timeSs) + "    |");
+		throughputs.put(testName, new double[][]{samples(timeRs), samples(timeJs), samples(timeHs), samples(timeMs), samples(timeSs)});
+		if(Allocation.isSupported())
+			System.out.println("| B/ROW |     " + df.format(allocs[0].getBytesPerOperation()) + "     |    " + df.format(allocs[1].getBytesPerOperation()) + "     |      " + 
+					df.format(allocs[2].getBytesPerOperation()) + "      |   " + df.format(allocs[3].getBytesPerOperation()) + "    |   " + 
+					df.format(allocs[4].getBytesPerOperation()) + "    |");
+		allocations.put(testName, allocs);
+		
+		if(profile)
+			profile(testName, scenario, rows);
+		
+		latencies.put(testName, histograms);
+		printLatency(testName, histograms);
 		
 		return new double[]{new Double(avg(timeRs)), new Double(avg(timeJs)), new Double(avg(timeHs)), 
 				new Double(avg(timeMs)), new Double(avg(timeSs))};
 	}
 	
-	private static String avg(List<Double> times){
-		double count = 0;
-		for (int i = 0; i < times.size(); i++) {
-			count += times.get(i);
+	private String avg(List<Double> times){
+		double mean = Statistics.mean(samples(times));
+		if(mean == 0) return "0";
+		
+		return df.format(mean);
+	}
+	
+	//confidence interval, relative to the mean
+	private String ci(List<Double> times){
+		double[] samples = samples(times);
+		double mean = Statistics.mean(samples);
+		if(mean == 0 || samples.length < 2) return "-";
+		
+		return "+/-" + df.format(Statistics.confidenceInterval(samples, confidence) / mean * 100) + "%";
+	}
+	
+	//samples of the result, statistical outliers are discarded in adaptive mode
+	private double[] samples(List<Double> times){
+		double[] values = new double[times.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = times.get(i);
+		}
+		return isAdaptive() ? Statistics.removeOutliers(values) : values;
+	}
+	
+	/**
+	 * runs the operation until the framework reaches steady state, or maxWarmup iterations. 
+	 * returns nanoseconds taken to get there.
+	 */
+	long warmupSteady(Scenario scenario, int framework, int rows) throws Exception{
+		CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+		boolean monitorJit = jit != null && jit.isCompilationTimeMonitoringSupported();
+		
+		double[] throughputs = new double[WARMUP_WINDOW];
+		long[] costs = new long[WARMUP_WINDOW], compilations = new long[WARMUP_WINDOW];
+		
+		long start = System.nanoTime();
+		int i = 0;
+		boolean steady = false;
+		while(!steady && i < maxWarmup){
+			long compilation = monitorJit ? jit.getTotalCompilationTime() : 0;
+			long cost = oper(scenario, getDao(framework), rows);
+			
+			costs[i % WARMUP_WINDOW] = cost;
+			throughputs[i % WARMUP_WINDOW] = throughput(rows, cost);
+			compilations[i % WARMUP_WINDOW] = monitorJit ? jit.getTotalCompilationTime() - compilation : 0;
+			i++;
+			
+			if(i >= WARMUP_WINDOW){
+				long window = 0, compiling = 0;
+				for (int j = 0; j < WARMUP_WINDOW; j++) {
+					window += costs[j];
+					compiling += compilations[j];
+				}
+				
+				double cv = Statistics.stddev(throughputs) / Statistics.mean(throughputs);
+				steady = cv <= steadyCv && compiling * 1000000L * 100 <= window;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		
+		System.out.println("-- " + FRAMEWORKS[framework] + (steady ? " steady after " : " not steady after ") + i + 
+				" warmup iterations, " + df.format(elapsed / 1000000d) + " ms" + (monitorJit ? "" : " (JIT time not monitored)"));
+		return elapsed;
+	}
+	
+	//print time to steady state
+	public static void printWarmup(Map<String, double[]> warmups){
+		if(warmups.isEmpty()) return;
+		
+		System.out.println("================== printing time to steady state (ms) ==================");
+		System.out.println("|   OPER/WARMUP(ms)   |     rexdb     |     jdbc    |  hibernate |  mybatis |  spring |");
+		System.out.println("| ------------------- | ------------- | ----------- | ---------- | -------- | ------- |");
+		for (Iterator<Map.Entry<String, double[]>> iterator = warmups.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, double[]> entry = iterator.next();
+			double[] values = entry.getValue();
+			System.out.println("|   " + entry.getKey() + "   |     " + df.format(values[0]) + "     |     " + df.format(values[1]) + "     |   " + 
+					df.format(values[2]) + "   |   " + df.format(values[3]) + "   |" + df.format(values[4]) + "   |");
+		}
+		System.out.println(JSON.toJSONString(warmups));
+	}
+	
+	/**
+	 * records every framework running the operation on its own with flight recorder, 
+	 * and prints hot methods and allocation sites of the recordings.
+	 */
+	void profile(String testName, Scenario scenario, int rows) throws Exception{
+		if(!FlightRecorder.isSupported()){
+			System.out.println("-- flight recorder is not available in java "+System.getProperty("java.version")+", profiling skipped.");
+			return;
 		}
 		
-		if(count == 0) return "0";
+		int iterations = profileLoop > 0 ? profileLoop : loop;
+		int[] sequence = sequence(0);
+		for (int k = 0; k < sequence.length; k++) {
+			int framework = sequence[k];
+			if(!isEnabled(framework)) continue;
+			
+			FlightRecorder recorder = new FlightRecorder();
+			File file = new File(profileDir, testName + "-" + FRAMEWORKS[framework] + ".jfr");
+			recorder.start();
+			try{
+				for (int i = 0; i < iterations; i++) {
+					oper(scenario, getDao(framework), rows);
+				}
+			}finally{
+				recorder.stop(file);
+			}
+			
+			FlightRecorder.Summary summary = FlightRecorder.summarize(file, Thread.currentThread().getId());
+			System.out.println("-------------- profile of "+testName+" of "+FRAMEWORKS[framework]+", "+iterations+" iterations: "+file.getPath()+" ------------");
+			printProfile("HOT METHOD", "CPU SAMPLES", summary.getHotMethods(profileTop), summary.getSamples());
+			printProfile("ALLOCATION SITE", "SAMPLED BYTES", summary.getAllocationSites(profileTop), summary.getAllocatedBytes());
+		}
+	}
+	
+	static void printProfile(String name, String unit, List<Map.Entry<String, Long>> entries, long total){
+		System.out.println("|   " + name + "   |   " + unit + "   |   %   |");
+		System.out.println("| ------------ | ------------ | ----- |");
+		for (int i = 0; i < entries.size(); i++) {
+			Map.Entry<String, Long> entry = entries.get(i);
+			System.out.println("|   " + entry.getKey() + "   |   " + entry.getValue() + "   |   " + 
+					df.format(total == 0 ? 0 : entry.getValue() * 100d / total) + "   |");
+		}
+	}
+	
+	//print bytes allocated per row, and GC count and time
+	public static void printAllocation(Map<String, Allocation[]> allocations){
+		if(allocations.isEmpty()) return;
+		
+		System.out.println("================== printing allocation (bytes per row/gc count/gc ms/peak live heap MB) ==================");
+		if(!Allocation.isSupported()){
+			System.out.println("-- allocated bytes of threads are not measurable in this JVM, only GC is reported.");
+		}
+		System.out.println("|   OPER/ALLOCATION   |     rexdb     |     jdbc    |  hibernate |  mybatis |  spring |");
+		System.out.println("| ------------------- | ------------- | ----------- | ---------- | -------- | ------- |");
 		
-		return df.format(count/times.size());
+		Map datas = new LinkedHashMap();
+		for (Iterator<Map.Entry<String, Allocation[]>> iterator = allocations.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, Allocation[]> entry = iterator.next();
+			Allocation[] allocs = entry.getValue();
+			
+			Map frameworks = new LinkedHashMap();
+			StringBuffer sb = new StringBuffer("|   " + entry.getKey() + "   |");
+			for (int i = 0; i < allocs.length; i++) {
+				sb.append("   ").append(df.format(allocs[i].getBytesPerOperation())).append('/')
+					.append(allocs[i].getGcCount()).append('/').append(allocs[i].getGcTime()).append('/')
+					.append(df.format(allocs[i].getPeakHeap() / (1024 * 1024d))).append("   |");
+				
+				Map allocation = new LinkedHashMap();
+				allocation.put("bytesPerRow", allocs[i].getBytesPerOperation());
+				allocation.put("gcCount", allocs[i].getGcCount());
+				allocation.put("gcTime(ms)", allocs[i].getGcTime());
+				allocation.put("peakHeap(MB)", allocs[i].getPeakHeap() / (1024 * 1024d));
+				frameworks.put(FRAMEWORKS[i], allocation);
+			}
+			System.out.println(sb);
+			datas.put(entry.getKey(), frameworks);
+		}
+		System.out.println(JSON.toJSONString(datas));
 	}
 	
-	//set rexdb dynamicClass setting
-	public void  setRexdbDynamicClass(boolean dynamicClass) throws DBException{
-		Configuration.getCurrentConfiguration().setDynamicClass(dynamicClass);
+	//adaptive mode stops when the confidence intervals of all frameworks are within the relative error
+	private boolean converged(int iterations, long deadline, List<Double>... times){
+		if(iterations < MIN_ADAPTIVE_LOOP) return false;
+		
+		double worst = 0;
+		for (int i = 0; i < times.length; i++) {
+			double[] samples = samples(times[i]);
+			double mean = Statistics.mean(samples);
+			if(!isEnabled(i) || mean == 0) continue;
+			
+			worst = Math.max(worst, Statistics.confidenceInterval(samples, confidence) / mean);
+		}
+		
+		if(worst <= relativeError){
+			System.out.println("-- converged after "+iterations+" iterations, relative error: +/-"+df.format(worst * 100)+"%");
+			return true;
+		}else if(System.nanoTime() > deadline){
+			System.out.println("-- time budget of "+budget+" s exhausted after "+iterations+" iterations, relative error: +/-"+df.format(worst * 100)+"%");
+			return true;
+		}
+		return false;
+	}
+	
+	//print throughput in MB/s of the payload sweep
+	public static void printPayload(Map<String, double[]> result, Map<String, Double> payloadBytes){
+		if(payloadBytes.isEmpty()) return;
+		
+		System.out.println("================== printing payload throughput (MB per second) ==================");
+		System.out.println("|   OPER/MB PER SECOND   |     rexdb     |     jdbc    |  hibernate |  mybatis |  spring |");
+		System.out.println("| ---------------------- | ------------- | ----------- | ---------- | -------- | ------- |");
+		
+		Map datas = new LinkedHashMap();
+		for (Iterator<Map.Entry<String, Double>> iterator = payloadBytes.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, Double> entry = iterator.next();
+			double[] values = result.get(entry.getKey());
+			if(values == null) continue;
+			
+			Map frameworks = new LinkedHashMap();
+			StringBuffer sb = new StringBuffer("|   " + entry.getKey() + "   |");
+			for (int i = 0; i < values.length; i++) {
+				double mbs = values[i] * entry.getValue() / (1024 * 1024);
+				sb.append("   ").append(df.format(mbs)).append("   |");
+				frameworks.put(FRAMEWORKS[i], mbs);
+			}
+			System.out.println(sb);
+			datas.put(entry.getKey(), frameworks);
+		}
+		System.out.println(JSON.toJSONString(datas));
 	}
 	
 	//print result
 	public static void printResult(Map<String, double[]> result){
 		System.out.println("================== printing result ==================");
-		System.out.println("|   OPER/COSTS(ms)   |     rexdb     |     jdbc    |  hibernate |  mybatis |  spring |");
+		System.out.println("|   OPER/ROWS PER SECOND   |     rexdb     |     jdbc    |  hibernate |  mybatis |  spring |");
 		System.out.println("| ------------------ | ------------- | ----------- | ---------- | -------- | ------- |");
 		
 		for (Iterator<Map.Entry<String, double[]>> iterator = result.entrySet().iterator(); iterator.hasNext();) {
@@ -217,8 +703,55 @@ public class RunPerformanceTest implements Runner{
 		}
 	}
 	
+	//print latency percentiles of a test
+	public static void printLatency(String testName, Histogram[] histograms){
+		System.out.println("-------------- latency of "+testName+" (microseconds per call) ------------");
+		System.out.println("|   FRAMEWORK   |    p50    |    p90    |    p99    |   p99.9   |    max    |");
+		System.out.println("| ------------- | --------- | --------- | --------- | --------- | --------- |");
+		for (int i = 0; i < histograms.length; i++) {
+			Histogram histogram = histograms[i];
+			System.out.println("|   " + FRAMEWORKS[i] + "   |   " + micros(histogram.getValueAtPercentile(50)) + "   |   " + 
+					micros(histogram.getValueAtPercentile(90)) + "   |   " + micros(histogram.getValueAtPercentile(99)) + "   |   " + 
+					micros(histogram.getValueAtPercentile(99.9)) + "   |   " + micros(histogram.getMax()) + "   |");
+		}
+	}
+	
+	//print result with latency percentiles
+	public static void printResult(Map<String, double[]> result, Map<String, Histogram[]> latencies){
+		printResult(result);
+		
+		System.out.println("================== printing latency (microseconds per call, p50/p90/p99/p99.9/max) ==================");
+		System.out.println("|   OPER/LATENCY(us)   |     rexdb     |     jdbc    |  hibernate |  mybatis |  spring |");
+		System.out.println("| -------------------- | ------------- | ----------- | ---------- | -------- | ------- |");
+		
+		for (Iterator<Map.Entry<String, Histogram[]>> iterator = latencies.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, Histogram[]> entry = iterator.next();
+			Histogram[] histograms = entry.getValue();
+			
+			StringBuffer sb = new StringBuffer("|   " + entry.getKey() + "   |");
+			for (int i = 0; i < histograms.length; i++) {
+				Histogram histogram = histograms[i];
+				sb.append("   ").append(micros(histogram.getValueAtPercentile(50))).append('/')
+					.append(micros(histogram.getValueAtPercentile(90))).append('/')
+					.append(micros(histogram.getValueAtPercentile(99))).append('/')
+					.append(micros(histogram.getValueAtPercentile(99.9))).append('/')
+					.append(micros(histogram.getMax())).append("   |");
+			}
+			System.out.println(sb);
+		}
+	}
+	
+	static String micros(long nanos){
+		return df.format(nanos / 1000d);
+	}
+	
 	//print json
 	public static void printJson(Map<String, double[]> result){
+		printJson(result, null);
+	}
+	
+	//print json with latency percentiles
+	public static void printJson(Map<String, double[]> result, Map<String, Histogram[]> latencies){
 		System.out.println("================== printing json result ==================");
 		
 		Map datas = new LinkedHashMap();
@@ -233,6 +766,22 @@ public class RunPerformanceTest implements Runner{
 			costs.put("mybatis", values[3]);
 			costs.put("spring", values[4]);
 			
+			Histogram[] histograms = latencies == null ? null : latencies.get(key);
+			if(histograms != null){
+				Map percentiles = new LinkedHashMap();
+				for (int i = 0; i < histograms.length; i++) {
+					Histogram histogram = histograms[i];
+					Map latency = new LinkedHashMap();
+					latency.put("p50", histogram.getValueAtPercentile(50) / 1000d);
+					latency.put("p90", histogram.getValueAtPercentile(90) / 1000d);
+					latency.put("p99", histogram.getValueAtPercentile(99) / 1000d);
+					latency.put("p99.9", histogram.getValueAtPercentile(99.9) / 1000d);
+					latency.put("max", histogram.getMax() / 1000d);
+					percentiles.put(FRAMEWORKS[i], latency);
+				}
+				costs.put("latency(us)", percentiles);
+			}
+			
 			datas.put(key, costs);
 		}
 		
@@ -248,41 +797,232 @@ public class RunPerformanceTest implements Runner{
 		deleteRows();
 			
 		System.out.println("===================== running performance test ======================");
+		System.out.println("--order: " + order + (ORDER_FIXED.equals(order) ? "" : ", seed: " + seed));
 		
-		//test insert
-		results.put("insert", opers("insert", OPER_INSERT, loop, 500/fast));
-		deleteRows();
+		for (int i = 0; i < scenarios.length; i++) {
+			if(payloads == null){
+				runScenario(scenarios[i], results);
+				continue;
+			}
+			for (int j = 0; j < payloads.length; j++) {
+				runScenario(scenarios[i], payloads[j], results);
+			}
+		}
 		
-		//test insert Ps
-		results.put("insertPs", opers("insertPs", OPER_INSERT_PS, loop, 500/fast));
-		deleteRows();
+		//------print results
+		printResult(results, latencies);
+		printWarmup(warmups);
+		printAllocation(allocations);
+		printPayload(results, payloadBytes);
+		printJson(results, latencies);
 		
-		//test batch insert
-		results.put("batchInsert", opers("batchInsert", OPER_BATCH, loop, 5000/fast));
-		deleteRows();
+		if(store)
+			storeResults(storeDir, config, results, throughputs);
+	}
+	
+	//runs a scenario, the table is empty before and after it
+	public void runScenario(String name, Map<String, double[]> results) throws Exception{
+		runScenario(name, Scenario.get(name), 1, results);
+	}
+	
+	/**
+	 * runs a scenario with new rows of the payload size, returns the test name, e.g. getList-64KB
+	 */
+	public String runScenario(String name, int payload, Map<String, double[]> results) throws Exception{
+		String testName = name + "-" + sizeName(payload);
+		Scenario scenario = Scenario.get(name);
 		
-		//test batch insert Ps
-		results.put("batchInsertPs", opers("batchInsertPs", OPER_BATCH_PS, loop, 5000/fast));
+		setPayload(payload);
+		try{
+			//rows of an operation, or rows of the table which a query reads
+			int bytes = Dao.getPayloadBytes();
+			long rows = Math.max(scenario.getTableRows() > 0 ? scenario.getTableRows() : scenario.getRows(), 1) / fast;
+			double scale = Math.min(1, (double)payloadBudget / Math.max(rows * bytes, 1));
+			System.out.println("-------------- payload "+bytes+" bytes per row"+(scale < 1 ? ", rows scaled to "+df.format(scale * 100)+"%" : "")+" ------------");
+			
+			runScenario(testName, scenario, scale, results);
+			
+			//a query reads all rows of the table in an operation which counts getRows() rows
+			payloadBytes.put(testName, scenario.getTableRows() > 0 && scenario.isReadOnly() ? 
+					(double)bytes * scenario.getTableRows() / scenario.getRows() : bytes);
+		}finally{
+			Dao.resetPayload();
+		}
+		return testName;
+	}
+	
+	void runScenario(String testName, Scenario scenario, double scale, Map<String, double[]> results) throws Exception{
+		setUp(scenario, scale);
+		try{
+			results.put(testName, opers(testName, scenario, loop, rows(scenario, scale)));
+		}finally{
+			tearDown(scenario);
+		}
+	}
+	
+	//rows of an operation at the speed of the test
+	int rows(Scenario scenario, double scale){
+		return scenario.isScaled() ? Math.max((int)(scenario.getRows() / fast * scale), 1) : scenario.getRows();
+	}
+	
+	//payload of the blob and/or clob column
+	void setPayload(int payload){
+		if(PAYLOAD_BLOB.equals(payloadColumn))
+			Dao.setPayload(payload, Dao.DEFAULT_REMARK.length());
+		else if(PAYLOAD_CLOB.equals(payloadColumn))
+			Dao.setPayload(Dao.DEFAULT_PHOTO.length, payload);
+		else
+			Dao.setPayload(payload, payload);
+	}
+	
+	//size in B, KB or MB, e.g. 64KB
+	static String sizeName(int bytes){
+		if(bytes >= 1024 * 1024 && bytes % (1024 * 1024) == 0) return bytes / (1024 * 1024) + "MB";
+		if(bytes >= 1024 && bytes % 1024 == 0) return bytes / 1024 + "KB";
+		return bytes + "B";
+	}
+	
+	//prepares the table of a scenario
+	public void setUp(Scenario scenario) throws Exception{
+		setUp(scenario, 1);
+	}
+	
+	//prepares the table of a scenario, with rows scaled by the payload sweep
+	void setUp(Scenario scenario, double scale) throws Exception{
+		tableRows = (int)(scenario.getTableRows() / fast * scale);
+		if(tableRows > 0)
+			System.out.println("------------------------- init "+tableRows+" rows --------------------------");
+		scenario.setUp(getUtilityDao(), tableRows);
+	}
+	
+	//cleans the table after a scenario
+	public void tearDown(Scenario scenario) throws Exception{
+		scenario.tearDown(getUtilityDao());
+		tableRows = 0;
 		deleteRows();
+	}
+	
+	//--------------forked JVM isolation
+	/**
+	 * runs every scenario of every framework in its own JVM, so frameworks do not share JIT profiles and heap, 
+	 * then merges the results.
+	 */
+	public static void runForked(Arguments args) throws Exception{
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+		Map<String, Histogram[]> latencies = new LinkedHashMap<String, Histogram[]>();
+		Map<String, double[]> warmups = new LinkedHashMap<String, double[]>();
+		Map<String, Allocation[]> allocations = new LinkedHashMap<String, Allocation[]>();
+		Map<String, double[][]> throughputs = new LinkedHashMap<String, double[][]>();
+		
+		Arguments childArgs = new Arguments(args.toArgs());
+		if(!childArgs.has("seed"))
+			childArgs.set("seed", String.valueOf(System.currentTimeMillis()));
+		childArgs.set("child", "true");
+		
+		System.out.println("===================== running performance test in forked JVMs ======================");
+		String[] scenarios = args.getList("scenario", Scenario.getDefaultNames());
+		int[] payloads = args.getInts("payload", null);
+		Map<String, Double> payloadBytes = new LinkedHashMap<String, Double>();
+		for (int i = 0; i < scenarios.length * (payloads == null ? 1 : payloads.length); i++) {
+			String scenario = scenarios[payloads == null ? i : i / payloads.length], testName = scenario;
+			if(payloads != null){
+				childArgs.set("payload", String.valueOf(payloads[i % payloads.length]));
+				testName = scenario + "-" + sizeName(payloads[i % payloads.length]);
+			}
+			
+			double[] values = new double[FRAMEWORKS.length], millis = new double[FRAMEWORKS.length];
+			Histogram[] histograms = new Histogram[FRAMEWORKS.length];
+			Allocation[] allocs = new Allocation[FRAMEWORKS.length];
+			double[][] samples = new double[FRAMEWORKS.length][];
+			
+			for (int j = 0; j < FRAMEWORKS.length; j++) {
+				histograms[j] = new Histogram();
+				allocs[j] = new Allocation();
+				samples[j] = new double[0];
+				System.out.println("-------------- forking "+testName+" of "+FRAMEWORKS[j]+" ------------");
+				
+				childArgs.set("scenario", scenario);
+				childArgs.set("framework", FRAMEWORKS[j]);
+				try{
+					JSONObject result = JSON.parseObject(JvmFork.launch(RunPerformanceTest.class, childArgs.toArgs()));
+					values[j] = result.getDoubleValue("value");
+					histograms[j] = Histogram.decode(result.getString("latency"));
+					allocs[j] = Allocation.decode(result.getString("allocation"));
+					samples[j] = result.getObject("samples", double[].class);
+					if(result.containsKey("warmup"))
+						millis[j] = result.getDoubleValue("warmup");
+					if(result.containsKey("payload"))
+						payloadBytes.put(testName, result.getDouble("payload"));
+				}catch(Exception e){
+					System.out.println("-- "+FRAMEWORKS[j]+" error: " + e.getMessage());
+				}
+			}
+			
+			results.put(testName, values);
+			latencies.put(testName, histograms);
+			allocations.put(testName, allocs);
+			throughputs.put(testName, samples);
+			if("auto".equals(args.get("warmup", null)))
+				warmups.put(testName, millis);
+		}
 		
-		//test get list
-		initRows(5000/fast);
-		results.put("getList", opers("getList", OPER_QUERY_LIST, loop, 50000/fast));
-		setRexdbDynamicClass(false);
-		results.put("getList-disableDynamicClass", opers("getList-disableDynamic", OPER_QUERY_LIST, loop, 50000/fast));
-		setRexdbDynamicClass(true);
-		results.put("getMapList", opers("getMapList", OPER_QUERY_MAPLIST, loop, 50000/fast));
+		printResult(results, latencies);
+		printWarmup(warmups);
+		printAllocation(allocations);
+		printPayload(results, payloadBytes);
+		printJson(results, latencies);
+		
+		if(args.getBoolean("store", false))
+			storeResults(args.get("storeDir", "results/store"), config(args), results, throughputs);
+	}
+	
+	//runs a scenario of one framework in a forked JVM
+	void runChild(String scenario, String framework) throws Exception{
+		int index = Arrays.asList(FRAMEWORKS).indexOf(framework);
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
 		
 		deleteRows();
+		String testName = scenario;
+		if(payloads == null)
+			runScenario(scenario, results);
+		else
+			testName = runScenario(scenario, payloads[0], results);
 		
-		//------print results
-		printResult(results);
-		printJson(results);
+		Map<String, Object> result = new LinkedHashMap<String, Object>();
+		result.put("value", results.get(testName)[index]);
+		result.put("latency", latencies.get(testName)[index].encode());
+		result.put("allocation", allocations.get(testName)[index].encode());
+		result.put("samples", throughputs.get(testName)[index]);
+		if(warmups.containsKey(testName))
+			result.put("warmup", warmups.get(testName)[index]);
+		if(payloadBytes.containsKey(testName))
+			result.put("payload", payloadBytes.get(testName));
+		JvmFork.printResult(result);
 	}
 	
 	//----------START TESTING
 	public static void main(String[] args) throws Exception {
-		RunPerformanceTest test = new RunPerformanceTest(1, 50);
-		test.run();
+		Arguments arguments = new Arguments(args);
+		int speed = arguments.getInt("speed", 1), loop = arguments.getInt("loop", 50);
+		arguments.set("speed", String.valueOf(speed));
+		arguments.set("loop", String.valueOf(loop));
+		RunSQLScript.startEmbedded(arguments);
+		
+		if(arguments.getBoolean("child", false)){
+			String framework = arguments.get("framework", null);
+			RunPerformanceTest test = new RunPerformanceTest(new String[]{framework});
+			test.fast = speed;
+			test.loop = loop;
+			test.configure(arguments);
+			test.runChild(arguments.get("scenario", null), framework);
+			//frameworks may leave non-daemon threads behind, e.g. the connection pool of hibernate
+			System.exit(0);
+		}else if(arguments.getBoolean("fork", false)){
+			runForked(arguments);
+		}else{
+			RunPerformanceTest test = new RunPerformanceTest(speed, loop);
+			test.configure(arguments);
+			test.run();
+		}
 	}
 }
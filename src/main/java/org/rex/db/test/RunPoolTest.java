@@ -0,0 +1,191 @@
+package org.rex.db.test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.rex.db.test.performance.ConcurrentHistogram;
+import org.rex.db.test.performance.Histogram;
+import org.rex.db.test.performance.PoolFactory;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * Compares connection pools under concurrent load. Every thread repeatedly gets a connection, runs a short query and closes it,
+ * for every pool and every pool size. Reports throughput, connection acquisition latency, which is the time waiting for a free
+ * connection once the pool is exhausted, the time a connection is held, and acquisitions timed out.
+ *
+ * arguments: pool=dbcp,rexdb,unpooled maxActive=2,8,32 maxIdle=(same as maxActive) threads=(2 * processors) loop=1000 timeout=5000(ms)
+ *            sql="SELECT COUNT(*) FROM rexdb_test_student"
+ */
+public class RunPoolTest implements Runner{
+
+	private String[] pools = PoolFactory.POOLS;
+	private int[] sizes = new int[]{2, 8, 32};
+	private int[] maxIdles;
+	private int threads = Runtime.getRuntime().availableProcessors() * 2, loop = 1000, timeout = 5000;
+	private String sql = "SELECT COUNT(*) FROM rexdb_test_student";
+
+	public RunPoolTest(Arguments args){
+		pools = args.getList("pool", pools);
+		sizes = args.getInts("maxActive", sizes);
+		maxIdles = args.getInts("maxIdle", sizes);
+		threads = args.getInt("threads", threads);
+		loop = args.getInt("loop", loop);
+		timeout = args.getInt("timeout", timeout);
+		sql = args.get("sql", sql);
+		if(maxIdles.length != sizes.length){
+			System.out.println("argument 'maxIdle' must have as many values as 'maxActive'.");
+			maxIdles = sizes;
+		}
+	}
+
+	/**
+	 * runs 'loop' acquisitions on every thread, returns costs in nanoseconds
+	 */
+	long acquire(final DataSource dataSource, final int loop, final ConcurrentHistogram acquisition, final ConcurrentHistogram hold,
+			final AtomicLong timeouts) throws Exception{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch ready = new CountDownLatch(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		try{
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(new Callable<Object>(){
+					public Object call() throws Exception {
+						ready.countDown();
+						start.await();
+						for (int j = 0; j < loop; j++) {
+							long begin = System.nanoTime();
+							Connection conn = null;
+							try{
+								conn = dataSource.getConnection();
+							}catch(SQLException e){
+								if(timeouts.getAndIncrement() == 0)
+									System.out.println("-- error: " + e.getMessage());
+								continue;
+							}
+
+							long acquired = System.nanoTime();
+							acquisition.record(acquired - begin);
+							try{
+								query(conn);
+							}finally{
+								conn.close();
+							}
+							hold.record(System.nanoTime() - acquired);
+						}
+						return null;
+					}
+				}));
+			}
+
+			ready.await();
+			long begin = System.nanoTime();
+			start.countDown();
+			for (int i = 0; i < futures.size(); i++) {
+				try{
+					futures.get(i).get();
+				}catch(ExecutionException e){
+					if(e.getCause() instanceof Exception)
+						throw (Exception)e.getCause();
+					throw e;
+				}
+			}
+			return System.nanoTime() - begin;
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	void query(Connection conn) throws SQLException{
+		Statement stmt = conn.createStatement();
+		try{
+			ResultSet rs = stmt.executeQuery(sql);
+			while(rs.next()){
+				rs.getObject(1);
+			}
+			rs.close();
+		}finally{
+			stmt.close();
+		}
+	}
+
+	@Override
+	public void run() throws Exception {
+		Map datas = new LinkedHashMap();
+
+		System.out.println("===================== running connection pool test ======================");
+		System.out.println("--threads: " + threads + ", loop: " + loop + ", timeout: " + timeout + " ms");
+		System.out.println("|   POOL   | MAXACTIVE/MAXIDLE |  OPS/S  | ACQUIRE p50/p99/p99.9/max(us) | HOLD p50/p99(us) | TIMEOUTS |");
+		System.out.println("| -------- | ----------------- | ------- | ----------------------------- | ---------------- | -------- |");
+
+		for (int i = 0; i < pools.length; i++) {
+			//the size of unpooled connections does not matter
+			int count = PoolFactory.isPooled(pools[i]) ? sizes.length : 1;
+			for (int j = 0; j < count; j++) {
+				String size = PoolFactory.isPooled(pools[i]) ? sizes[j] + "/" + maxIdles[j] : "-";
+				DataSource dataSource = PoolFactory.create(pools[i], sizes[j], maxIdles[j], timeout);
+				try{
+					//warm up the pool and the JIT
+					acquire(dataSource, Math.max(loop / 10, 1), new ConcurrentHistogram(), new ConcurrentHistogram(), new AtomicLong());
+
+					ConcurrentHistogram acquisition = new ConcurrentHistogram(), hold = new ConcurrentHistogram();
+					AtomicLong timeouts = new AtomicLong();
+					long costs = acquire(dataSource, loop, acquisition, hold, timeouts);
+
+					Histogram acquired = acquisition.getHistogram(), held = hold.getHistogram();
+					double ops = RunPerformanceTest.throughput((int)acquired.getCount(), costs);
+					System.out.println("|   " + pools[i] + "   |   " + size + "   |   " + RunPerformanceTest.df.format(ops) + "   |   " +
+							RunPerformanceTest.micros(acquired.getValueAtPercentile(50)) + "/" + RunPerformanceTest.micros(acquired.getValueAtPercentile(99)) + "/" +
+							RunPerformanceTest.micros(acquired.getValueAtPercentile(99.9)) + "/" + RunPerformanceTest.micros(acquired.getMax()) + "   |   " +
+							RunPerformanceTest.micros(held.getValueAtPercentile(50)) + "/" + RunPerformanceTest.micros(held.getValueAtPercentile(99)) + "   |   " +
+							timeouts.get() + "   |");
+
+					Map result = new LinkedHashMap();
+					result.put("opsPerSecond", ops);
+					result.put("acquire(us)", percentiles(acquired));
+					result.put("hold(us)", percentiles(held));
+					result.put("timeouts", timeouts.get());
+					datas.put(PoolFactory.isPooled(pools[i]) ? pools[i] + "-" + size : pools[i], result);
+				}finally{
+					PoolFactory.close(dataSource);
+				}
+			}
+		}
+
+		System.out.println("================== printing json result ==================");
+		System.out.println(JSON.toJSONString(datas));
+	}
+
+	static Map percentiles(Histogram histogram){
+		Map latency = new LinkedHashMap();
+		latency.put("p50", histogram.getValueAtPercentile(50) / 1000d);
+		latency.put("p90", histogram.getValueAtPercentile(90) / 1000d);
+		latency.put("p99", histogram.getValueAtPercentile(99) / 1000d);
+		latency.put("p99.9", histogram.getValueAtPercentile(99.9) / 1000d);
+		latency.put("max", histogram.getMax() / 1000d);
+		return latency;
+	}
+
+	//----------START TESTING
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		RunSQLScript.startEmbedded(arguments);
+		new RunPoolTest(arguments).run();
+	}
+}
@@ -6,6 +6,7 @@ import java.io.InputStreamReader;
 
 import org.rex.DB;
 import org.rex.db.dialect.Dialect;
+import org.rex.db.test.performance.Embedded;
 
 public class RunSQLScript implements Runner{
 	
@@ -49,6 +50,19 @@ public class RunSQLScript implements Runner{
 		}
 	}
 	
+	/**
+	 * starts the in-memory database given by argument embedded=h2|hsqldb and creates tables in it, 
+	 * returns false if no embedded database is given
+	 */
+	public static boolean startEmbedded(Arguments args) throws Exception{
+		String database = args.get("embedded", null);
+		if(database == null) return false;
+		
+		Embedded.start(database);
+		new RunSQLScript().run();
+		return true;
+	}
+	
 	public static void main(String[] args) throws Exception {
 		new RunSQLScript().run();
 	}
@@ -0,0 +1,279 @@
+package org.rex.db.test;
+
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.rex.db.test.performance.ConcurrentHistogram;
+import org.rex.db.test.performance.Dao;
+import org.rex.db.test.performance.Histogram;
+import org.rex.db.test.performance.Scenario;
+
+/**
+ * Simulates user sessions, every session runs on its own virtual thread (java 21 or later) and repeats a script of
+ * DAO calls with random think time between calls. All sessions share the pooled DataSource of the DAO.
+ * Pinned virtual threads are traced by the JVM (jdk.tracePinnedThreads) and reported by call site.
+ *
+ * arguments: sessions=10000 script=getList,insert,getMapList repeat=3 think=100(ms, mean) rows=10 tableRows=100
+ *            threads=virtual|platform platformThreads=1000
+ */
+public class RunSessionTest extends RunPerformanceTest{
+
+	static final String PINNED_MONITOR = "<== monitors";
+
+	private int sessions = 10000, repeat = 3, think = 100, rows = 10, tableRows = 100, platformThreads = 1000;
+	private String[] script = new String[]{"getList", "insert", "getMapList"};
+	private boolean virtual = true;
+
+	private PinningCounter pinning;
+
+	public RunSessionTest(Arguments args) throws Exception{
+		super();
+		sessions = args.getInt("sessions", sessions);
+		repeat = args.getInt("repeat", repeat);
+		think = args.getInt("think", think, 0);
+		rows = args.getInt("rows", rows);
+		tableRows = args.getInt("tableRows", tableRows);
+		platformThreads = args.getInt("platformThreads", platformThreads);
+		script = args.getList("script", script);
+		virtual = !"platform".equals(args.get("threads", "virtual"));
+	}
+
+	//virtual thread per session if the JVM supports it
+	ExecutorService newExecutor(){
+		if(virtual){
+			try{
+				Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService)method.invoke(null);
+			}catch(Exception e){
+				System.out.println("-- virtual threads are not supported by java "+System.getProperty("java.version")+
+						", running sessions on "+platformThreads+" platform threads.");
+				virtual = false;
+			}
+		}
+		return Executors.newFixedThreadPool(Math.min(sessions, platformThreads));
+	}
+
+	//runs all sessions against a dao, returns costs in nanoseconds
+	long runSessions(final Dao dao, final Scenario[] operations, final ConcurrentHistogram histogram, final AtomicLong errors) throws Exception{
+		ExecutorService executor = newExecutor();
+		final CountDownLatch done = new CountDownLatch(sessions);
+		long start = System.nanoTime();
+		try{
+			for (int i = 0; i < sessions; i++) {
+				final int session = i;
+				executor.execute(new Runnable(){
+					public void run() {
+						Random random = new Random(session);
+						try{
+							for (int j = 0; j < repeat; j++) {
+								for (int k = 0; k < operations.length; k++) {
+									if(think > 0)
+										Thread.sleep((long)(-Math.log(1 - random.nextDouble()) * think));
+
+									long begin = System.nanoTime();
+									oper(operations[k], dao, rows);
+									histogram.record(System.nanoTime() - begin);
+								}
+							}
+						}catch(Exception e){
+							if(errors.getAndIncrement() == 0)
+								System.out.println("-- "+getName(dao)+" session error: " + e.getMessage());
+						}finally{
+							done.countDown();
+						}
+					}
+				});
+			}
+			done.await();
+			return System.nanoTime() - start;
+		}finally{
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+	}
+
+	static String getName(Dao dao){
+		try{
+			return dao.getName();
+		}catch(Exception e){
+			return dao.getClass().getSimpleName();
+		}
+	}
+
+	@Override
+	public void run() throws Exception {
+		Scenario[] operations = new Scenario[script.length];
+		for (int i = 0; i < script.length; i++) {
+			operations[i] = Scenario.get(script[i]);
+		}
+
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+		double[] values = new double[FRAMEWORKS.length];
+		Histogram[] histograms = new Histogram[FRAMEWORKS.length];
+
+		deleteRows();
+		initRows(tableRows);
+
+		System.out.println("===================== running session simulation ======================");
+		System.out.println("--sessions: "+sessions+", script: "+join(script)+" x "+repeat+", think time: "+think+" ms (mean)");
+
+		startPinningTrace();
+		try{
+			System.out.println("|  FRAMEWORK  |  CALLS/S  |  ERRORS  |  p50(us)  |  p99(us)  | p99.9(us) |  max(us)  | PINNED SITES |");
+			System.out.println("| ----------- | --------- | -------- | --------- | --------- | --------- | --------- | ------------ |");
+			for (int i = 0; i < FRAMEWORKS.length; i++) {
+				histograms[i] = new Histogram();
+				if(!isEnabled(i)) continue;
+
+				ConcurrentHistogram histogram = new ConcurrentHistogram();
+				AtomicLong errors = new AtomicLong();
+				int pinnedBefore = pinning == null ? 0 : pinning.getSites().size();
+
+				long costs = runSessions(getDao(i), operations, histogram, errors);
+				histograms[i] = histogram.getHistogram();
+				values[i] = throughput((int)histograms[i].getCount(), costs);
+				int pinned = pinning == null ? 0 : pinning.getSites().size() - pinnedBefore;
+
+				System.out.println("|   " + FRAMEWORKS[i] + "   |   " + df.format(values[i]) + "   |   " + errors.get() + "   |   " +
+						micros(histograms[i].getValueAtPercentile(50)) + "   |   " + micros(histograms[i].getValueAtPercentile(99)) + "   |   " +
+						micros(histograms[i].getValueAtPercentile(99.9)) + "   |   " + micros(histograms[i].getMax()) + "   |   " +
+						(pinning == null ? "-" : String.valueOf(pinned)) + "   |");
+
+				if(!isQueryOnly(operations)) {
+					deleteRows();
+					initRows(tableRows);
+				}
+			}
+		}finally{
+			stopPinningTrace();
+		}
+
+		deleteRows();
+
+		String key = "sessions-" + sessions + (virtual ? "-virtual" : "-platform");
+		results.put(key, values);
+		latencies.put(key, histograms);
+		printPinning();
+		printResult(results, latencies);
+		printJson(results, latencies);
+	}
+
+	static boolean isQueryOnly(Scenario[] operations){
+		for (int i = 0; i < operations.length; i++) {
+			if(!operations[i].isReadOnly())
+				return false;
+		}
+		return true;
+	}
+
+	static String join(String[] values){
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < values.length; i++) {
+			if(i > 0) sb.append(",");
+			sb.append(values[i]);
+		}
+		return sb.toString();
+	}
+
+	//--------------pinning
+	void startPinningTrace(){
+		if(virtual && System.getProperty("jdk.tracePinnedThreads") != null){
+			pinning = new PinningCounter(System.out);
+			System.setOut(pinning);
+		}
+	}
+
+	void stopPinningTrace(){
+		if(pinning != null)
+			System.setOut(pinning.getOut());
+	}
+
+	void printPinning(){
+		System.out.println("================== printing pinned virtual threads ==================");
+		if(pinning == null || !virtual){
+			System.out.println("-- pinning is traced with virtual threads only, the JVM prints every distinct pinned stack once.");
+			return;
+		}
+
+		List<Map.Entry<String, Integer>> sites = new ArrayList<Map.Entry<String, Integer>>(pinning.getSites().entrySet());
+		Collections.sort(sites, new Comparator<Map.Entry<String, Integer>>(){
+			public int compare(Map.Entry<String, Integer> o1, Map.Entry<String, Integer> o2) {
+				return o2.getValue().compareTo(o1.getValue());
+			}
+		});
+
+		System.out.println("|  PINNED STACKS  |  MONITOR HELD AT  |");
+		System.out.println("| --------------- | ----------------- |");
+		for (int i = 0; i < sites.size(); i++) {
+			System.out.println("|   " + sites.get(i).getValue() + "   |   " + sites.get(i).getKey() + "   |");
+		}
+	}
+
+	/**
+	 * counts frames holding monitors in stacks printed by -Djdk.tracePinnedThreads
+	 */
+	static class PinningCounter extends PrintStream{
+
+		private PrintStream out;
+		private Map<String, Integer> sites = new LinkedHashMap<String, Integer>();
+
+		PinningCounter(PrintStream out){
+			super(out, true);
+			this.out = out;
+		}
+
+		PrintStream getOut() {
+			return out;
+		}
+
+		synchronized Map<String, Integer> getSites() {
+			return new LinkedHashMap<String, Integer>(sites);
+		}
+
+		public void print(String s) {
+			scan(s);
+			super.print(s);
+		}
+
+		public void print(Object obj) {
+			scan(String.valueOf(obj));
+			super.print(obj);
+		}
+
+		private synchronized void scan(String s){
+			if(s == null || s.indexOf(PINNED_MONITOR) == -1) return;
+
+			String[] lines = s.split("\n");
+			for (int i = 0; i < lines.length; i++) {
+				int index = lines[i].indexOf(PINNED_MONITOR);
+				if(index == -1) continue;
+
+				String site = lines[i].substring(0, index).trim();
+				Integer count = sites.get(site);
+				sites.put(site, count == null ? 1 : count + 1);
+			}
+		}
+	}
+
+	//----------START TESTING
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		if(arguments.getBoolean("tracePinning", true) && System.getProperty("jdk.tracePinnedThreads") == null)
+			System.setProperty("jdk.tracePinnedThreads", "short");
+
+		RunSQLScript.startEmbedded(arguments);
+		new RunSessionTest(arguments).run();
+	}
+}
@@ -0,0 +1,90 @@
+package org.rex.db.test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.rex.db.test.performance.Scenario;
+import org.rex.db.test.performance.TransactionScenario;
+
+/**
+ * Measures transaction overhead of every framework. Runs the transaction scenario for every count of statements per
+ * transaction, isolation level and end of the transaction, autocommit runs the same statements without a transaction
+ * as the baseline. Reports mean time per statement, the overhead of a transaction is spread over its statements.
+ *
+ * arguments: statements=1,10,100,1000 isolation=default,READ_COMMITTED,SERIALIZABLE end=autocommit,commit,rollback loop=20 warmup=5
+ */
+public class RunTransactionTest extends RunPerformanceTest{
+
+	private int[] statements = new int[]{1, 10, 100, 1000};
+	private String[] isolations = new String[]{"default", "READ_COMMITTED", "SERIALIZABLE"};
+	private String[] ends = new String[]{TransactionScenario.AUTOCOMMIT, TransactionScenario.COMMIT, TransactionScenario.ROLLBACK};
+
+	public RunTransactionTest(Arguments args) throws Exception{
+		super();
+		loop = args.getInt("loop", 20);
+		configure(args);
+		statements = args.getInts("statements", statements);
+		isolations = args.getList("isolation", isolations);
+		ends = args.getList("end", ends);
+	}
+
+	@Override
+	public void run() throws Exception {
+		TransactionScenario scenario = (TransactionScenario)Scenario.get("transaction");
+		Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+		Map<String, String> labels = new LinkedHashMap<String, String>();
+
+		deleteRows();
+		System.out.println("===================== running transaction test ======================");
+		System.out.println("--statements: " + join(statements) + ", loop: " + loop);
+
+		for (int i = 0; i < statements.length; i++) {
+			scenario.setStatements(statements[i]);
+			for (int j = 0; j < ends.length; j++) {
+				scenario.setEnd(ends[j]);
+				//statements without a transaction do not have an isolation level
+				boolean autocommit = TransactionScenario.AUTOCOMMIT.equals(ends[j]);
+				for (int k = 0; k < (autocommit ? 1 : isolations.length); k++) {
+					scenario.setIsolation(autocommit ? "default" : isolations[k]);
+					String testName = "transaction-" + statements[i] + "-" + (autocommit ? ends[j] : isolations[k] + "-" + ends[j]);
+					runScenario(testName, scenario, 1, results);
+					labels.put(testName, "|   " + statements[i] + "   |   " + (autocommit ? "-" : isolations[k]) + "   |   " + ends[j] + "   |");
+				}
+			}
+		}
+
+		System.out.println("================== printing time per statement (microseconds, mean) ==================");
+		System.out.println("|  STATEMENTS  |  ISOLATION  |  END  |     rexdb     |     jdbc    |  hibernate |  mybatis |  spring |");
+		System.out.println("| ------------ | ----------- | ----- | ------------- | ----------- | ---------- | -------- | ------- |");
+		for (Map.Entry<String, String> entry : labels.entrySet()) {
+			double[] values = results.get(entry.getKey());
+			StringBuffer sb = new StringBuffer(entry.getValue());
+			for (int i = 0; i < values.length; i++) {
+				sb.append("   ").append(values[i] == 0 ? "-" : df.format(1000000 / values[i])).append("   |");
+			}
+			System.out.println(sb);
+		}
+
+		printResult(results, latencies);
+		printAllocation(allocations);
+		printJson(results, latencies);
+	}
+
+	static String join(int[] values){
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < values.length; i++) {
+			if(i > 0) sb.append(",");
+			sb.append(values[i]);
+		}
+		return sb.toString();
+	}
+
+	//----------START TESTING
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		RunSQLScript.startEmbedded(arguments);
+		RunTransactionTest test = new RunTransactionTest(arguments);
+		test.fast = arguments.getInt("speed", 1);
+		test.run();
+	}
+}
@@ -0,0 +1,207 @@
+package org.rex.db.test.performance;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Bytes allocated by the measuring thread, garbage collections and peak live heap of the JVM while operations run.
+ * Call start() and stop() around the operations from the same thread, intervals are added up.
+ */
+public class Allocation {
+
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private static final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+	private static final List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+	
+	//--highest heap usage after a garbage collection since the interval started, 0 if there was none
+	private static final AtomicLong heapAfterGc = new AtomicLong();
+	
+	static{
+		if(isSupported() && !((com.sun.management.ThreadMXBean)threads).isThreadAllocatedMemoryEnabled())
+			((com.sun.management.ThreadMXBean)threads).setThreadAllocatedMemoryEnabled(true);
+		
+		listenGc();
+	}
+
+	private long bytes;
+	private long operations;
+	private long gcCount;
+	private long gcTime;
+	private long peakHeap;
+
+	private long startBytes, startGcCount, startGcTime;
+
+	/**
+	 * is allocation of threads measurable in this JVM
+	 */
+	public static boolean isSupported(){
+		return threads instanceof com.sun.management.ThreadMXBean &&
+				((com.sun.management.ThreadMXBean)threads).isThreadAllocatedMemorySupported();
+	}
+
+	public void start(){
+		startBytes = allocatedBytes();
+		startGcCount = gcCount();
+		startGcTime = gcTime();
+		heapAfterGc.set(0);
+	}
+
+	/**
+	 * ends an interval of the given operations
+	 */
+	public void stop(long operations){
+		bytes += allocatedBytes() - startBytes;
+		gcCount += gcCount() - startGcCount;
+		gcTime += gcTime() - startGcTime;
+		this.operations += operations;
+		
+		//without a collection in the interval, the live heap is at most the heap in use
+		long live = heapAfterGc.get();
+		peakHeap = Math.max(peakHeap, live == 0 ? heapUsed() : live);
+	}
+
+	/**
+	 * add all intervals of another allocation
+	 */
+	public void merge(Allocation other){
+		if(other == null) return;
+		bytes += other.bytes;
+		operations += other.operations;
+		gcCount += other.gcCount;
+		gcTime += other.gcTime;
+		peakHeap = Math.max(peakHeap, other.peakHeap);
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public long getOperations() {
+		return operations;
+	}
+
+	public long getGcCount() {
+		return gcCount;
+	}
+
+	/**
+	 * milliseconds spent in garbage collections
+	 */
+	public long getGcTime() {
+		return gcTime;
+	}
+
+	/**
+	 * highest heap usage after a garbage collection in any interval, which is the peak of live objects when collections are frequent
+	 */
+	public long getPeakHeap() {
+		return peakHeap;
+	}
+	
+	public double getBytesPerOperation(){
+		return operations == 0 ? 0 : (double)bytes / operations;
+	}
+
+	/**
+	 * compact text form, bytes,operations,gcCount,gcTime,peakHeap
+	 */
+	public String encode(){
+		return bytes + "," + operations + "," + gcCount + "," + gcTime + "," + peakHeap;
+	}
+
+	/**
+	 * allocation from the text form of encode()
+	 */
+	public static Allocation decode(String text){
+		Allocation allocation = new Allocation();
+		if(text == null || text.length() == 0) return allocation;
+
+		String[] values = text.split(",");
+		allocation.bytes = Long.parseLong(values[0]);
+		allocation.operations = Long.parseLong(values[1]);
+		allocation.gcCount = Long.parseLong(values[2]);
+		allocation.gcTime = Long.parseLong(values[3]);
+		if(values.length > 4)
+			allocation.peakHeap = Long.parseLong(values[4]);
+		return allocation;
+	}
+
+	//----------counters
+	static long allocatedBytes(){
+		if(!isSupported()) return 0;
+		long bytes = ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return bytes < 0 ? 0 : bytes;
+	}
+
+	static long gcCount(){
+		long count = 0;
+		for (int i = 0; i < collectors.size(); i++) {
+			count += Math.max(collectors.get(i).getCollectionCount(), 0);
+		}
+		return count;
+	}
+
+	static long heapUsed(){
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+	
+	//records heap usage after every collection, from notifications of the collectors
+	static void listenGc(){
+		final List<String> heapPools = new ArrayList<String>();
+		for (int i = 0; i < pools.size(); i++) {
+			if(pools.get(i).getType() == MemoryType.HEAP)
+				heapPools.add(pools.get(i).getName());
+		}
+		
+		NotificationListener listener = new NotificationListener(){
+			public void handleNotification(Notification notification, Object handback) {
+				if(!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+				
+				GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData)notification.getUserData());
+				long used = 0;
+				for (Iterator<Map.Entry<String, MemoryUsage>> iterator = info.getGcInfo().getMemoryUsageAfterGc().entrySet().iterator(); iterator.hasNext();) {
+					Map.Entry<String, MemoryUsage> entry = iterator.next();
+					if(heapPools.contains(entry.getKey()))
+						used += entry.getValue().getUsed();
+				}
+				
+				long peak;
+				while((peak = heapAfterGc.get()) < used && !heapAfterGc.compareAndSet(peak, used));
+			}
+		};
+		
+		try{
+			for (int i = 0; i < collectors.size(); i++) {
+				if(collectors.get(i) instanceof NotificationEmitter)
+					((NotificationEmitter)collectors.get(i)).addNotificationListener(listener, null, null);
+			}
+		}catch(Throwable e){
+			//notifications of collectors are available in java 7 and later
+		}
+	}
+	
+	static long gcTime(){
+		long time = 0;
+		for (int i = 0; i < collectors.size(); i++) {
+			time += Math.max(collectors.get(i).getCollectionTime(), 0);
+		}
+		return time;
+	}
+}
@@ -0,0 +1,17 @@
+package org.rex.db.test.performance;
+
+/**
+ * inserts rows in a batch, with prepared parameters
+ */
+public class BatchInsertPsScenario extends BatchInsertScenario {
+
+	@Override
+	public String getName() {
+		return "batchInsertPs";
+	}
+
+	@Override
+	protected int[] batchInsert(Dao dao, int rows) throws Exception {
+		return dao.batchInsertPs(rows);
+	}
+}
@@ -0,0 +1,29 @@
+package org.rex.db.test.performance;
+
+/**
+ * inserts rows in a batch, with beans
+ */
+public class BatchInsertScenario extends Scenario {
+
+	@Override
+	public String getName() {
+		return "batchInsert";
+	}
+
+	@Override
+	public int getRows() {
+		return 5000;
+	}
+
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		long start = System.nanoTime();
+		int[] result = batchInsert(dao, rows);
+		record(histogram, start);
+		return result;
+	}
+	
+	protected int[] batchInsert(Dao dao, int rows) throws Exception{
+		return dao.batchInsert(rows);
+	}
+}
@@ -0,0 +1,23 @@
+package org.rex.db.test.performance;
+
+/**
+ * updates rows in a batch by random primary keys, hibernate runs HQL update statements instead of dirty checking
+ */
+public class BatchUpdateHqlScenario extends BatchUpdateScenario {
+
+	@Override
+	public String getName() {
+		return "batchUpdate-hql";
+	}
+	
+	@Override
+	public void setUp(Dao dao, int tableRows) throws Exception {
+		super.setUp(dao, tableRows);
+		HibernateDao.setHqlUpdate(true);
+	}
+	
+	@Override
+	public void tearDown(Dao dao) throws Exception {
+		HibernateDao.setHqlUpdate(false);
+	}
+}
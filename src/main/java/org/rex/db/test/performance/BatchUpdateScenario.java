@@ -0,0 +1,41 @@
+package org.rex.db.test.performance;
+
+/**
+ * updates rows in a batch by random primary keys, hibernate updates loaded entities found dirty at commit.
+ * writes are not run by default, select them with scenario=batchUpdate
+ */
+public class BatchUpdateScenario extends KeyScenario {
+
+	@Override
+	public String getName() {
+		return "batchUpdate";
+	}
+
+	@Override
+	public int getRows() {
+		return 5000;
+	}
+	
+	@Override
+	public int getTableRows() {
+		return 10000;
+	}
+
+	@Override
+	public boolean isDefault() {
+		return false;
+	}
+	
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		long[] studentIds = new long[rows];
+		for (int i = 0; i < rows; i++) {
+			studentIds[i] = keys.next();
+		}
+		
+		long start = System.nanoTime();
+		int[] result = dao.batchUpdate(studentIds);
+		record(histogram, start);
+		return result;
+	}
+}
@@ -0,0 +1,24 @@
+package org.rex.db.test.performance;
+
+/**
+ * Consumes results of benchmarked calls, so that the JIT compiler could not eliminate them as dead code.
+ */
+public class Blackhole {
+
+	private volatile Object sink;
+	private volatile int intSink;
+
+	public void consume(Object result){
+		sink = result;
+	}
+
+	public void consume(int result){
+		intSink = result;
+	}
+
+	public void consume(int[] result){
+		sink = result;
+		if(result != null && result.length > 0)
+			intSink = result[0];
+	}
+}
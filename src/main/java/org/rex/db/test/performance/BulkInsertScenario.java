@@ -0,0 +1,47 @@
+package org.rex.db.test.performance;
+
+import org.rex.db.test.Arguments;
+
+/**
+ * inserts rows in batches of batchSize rows, committing every commitInterval rows, e.g. chunks of DB.batchUpdate in rexdb,
+ * flushes of the BATCH executor in mybatis, flush and clear of the session in hibernate and chunks of batchUpdate in spring.
+ * a transaction ends after the batch which reaches commitInterval rows.
+ * arguments: bulkRows=20000 batchSize=1000 commitInterval=0, 0 commits once after all rows
+ */
+public class BulkInsertScenario extends Scenario {
+	
+	private int rows = 20000, batchSize = 1000, commitInterval = 0;
+
+	@Override
+	public String getName() {
+		return "bulkInsert";
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+	
+	@Override
+	public void configure(Arguments args) {
+		rows = args.getInt("bulkRows", rows);
+		batchSize = args.getInt("batchSize", batchSize);
+		commitInterval = args.getInt("commitInterval", commitInterval, 0);
+	}
+	
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+	
+	public void setCommitInterval(int commitInterval) {
+		this.commitInterval = commitInterval;
+	}
+
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		long start = System.nanoTime();
+		int result = dao.bulkInsert(rows, batchSize, commitInterval);
+		record(histogram, start);
+		return result;
+	}
+}
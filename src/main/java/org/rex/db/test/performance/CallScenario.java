@@ -0,0 +1,76 @@
+package org.rex.db.test.performance;
+
+import java.util.Arrays;
+
+import org.rex.db.test.Arguments;
+
+/**
+ * calls a stored procedure of the sql scripts one by one, e.g. DB.call of rexdb, CallableStatement of JDBC, SimpleJdbcCall
+ * of spring, CALLABLE statements of mybatis and ProcedureCall of hibernate. in and in_out take random keys, out, inout and
+ * return count rows of the table, return_rs reads 2 result sets. procedures exist in the scripts of mysql and hsqldb,
+ * H2 has neither out parameters of procedures nor multiple result sets, so the scenario is not run by default,
+ * select it with scenario=call or run RunCallTest.
+ * arguments: procedure=in|out|in_out|inout|return|return_rs
+ */
+public class CallScenario extends KeyScenario {
+	
+	private String procedure = Dao.PROC_IN;
+
+	@Override
+	public String getName() {
+		return "call";
+	}
+
+	@Override
+	public int getRows() {
+		return 1000;
+	}
+	
+	@Override
+	public int getTableRows() {
+		return 1000;
+	}
+	
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+	
+	@Override
+	public boolean isRowByRow() {
+		return true;
+	}
+	
+	@Override
+	public boolean isDefault() {
+		return false;
+	}
+	
+	@Override
+	public void configure(Arguments args) {
+		super.configure(args);
+		try{
+			setProcedure(args.get("procedure", procedure));
+		}catch(Exception e){
+			System.out.println(e.getMessage());
+		}
+	}
+	
+	public void setProcedure(String procedure) throws Exception{
+		if(!Arrays.asList(Dao.PROCEDURES).contains(procedure))
+			throw new Exception("procedure '"+procedure+"' not exist, available: "+Arrays.asList(Dao.PROCEDURES)+".");
+		this.procedure = procedure;
+	}
+
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		Object result = null;
+		for (int i = 0; i < rows; i++) {
+			long studentId = keys.next();
+			long start = System.nanoTime();
+			result = dao.call(procedure, studentId);
+			record(histogram, start);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,36 @@
+package org.rex.db.test.performance;
+
+/**
+ * Histogram shared by many threads, values are recorded into stripes chosen by thread to reduce contention.
+ */
+public class ConcurrentHistogram {
+
+	private final Histogram[] stripes;
+
+	public ConcurrentHistogram(){
+		stripes = new Histogram[Runtime.getRuntime().availableProcessors() * 4];
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new Histogram();
+		}
+	}
+
+	public void record(long value){
+		Histogram stripe = stripes[(int)(Thread.currentThread().getId() % stripes.length)];
+		synchronized (stripe) {
+			stripe.record(value);
+		}
+	}
+
+	/**
+	 * merges all stripes into a new histogram
+	 */
+	public Histogram getHistogram(){
+		Histogram histogram = new Histogram();
+		for (int i = 0; i < stripes.length; i++) {
+			synchronized (stripes[i]) {
+				histogram.merge(stripes[i]);
+			}
+		}
+		return histogram;
+	}
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.rex.DB;
@@ -33,11 +34,63 @@ public abstract class Dao {
 	 */
 	public abstract List getMapList() throws Exception;
 	
+	/**
+	 * select 1 row by key
+	 */
+	public abstract Object get(long studentId) throws Exception;
+	
+	/**
+	 * select 1 row by key
+	 */
+	public abstract Map getMap(long studentId) throws Exception;
+	
+	/**
+	 * select a page of rows in the order of key, after skipping offset rows
+	 */
+	public abstract List getPage(int offset, int rows) throws Exception;
+	
+	/**
+	 * select a page of rows in the order of key, with keys greater than the given key
+	 */
+	public abstract List getPageAfter(long studentId, int rows) throws Exception;
+	
+	/**
+	 * reads all rows one by one as beans with the given JDBC fetch size, without keeping them. returns rows read
+	 */
+	public abstract long stream(int fetchSize) throws Exception;
+	
 	/**
 	 * delete all rows
 	 */
 	public abstract int delete() throws Exception;
 	
+	/**
+	 * delete 1 row by key
+	 */
+	public abstract int delete(long studentId) throws Exception;
+	
+	/**
+	 * update name and major of 1 row by key
+	 */
+	public abstract int update(long studentId) throws Exception;
+	
+	/**
+	 * update name and major of rows batch by keys
+	 */
+	public abstract int[] batchUpdate(long[] studentIds) throws Exception;
+	
+	/**
+	 * updates rows by keys one statement each in a transaction of the given isolation level, then commits or rolls back.
+	 * isolation is a level of java.sql.Connection or ISOLATION_DEFAULT
+	 */
+	public abstract int transaction(long[] studentIds, int isolation, boolean rollback) throws Exception;
+	
+	/**
+	 * calls procedure rexdb_test_proc_<procedure>, one of PROCEDURES. the key is the input of in and in_out,
+	 * returns values of out parameters or rows of result sets
+	 */
+	public abstract Object call(String procedure, long studentId) throws Exception;
+	
 	/**
 	 * insert rows batch
 	 */
@@ -48,6 +101,18 @@ public abstract class Dao {
 	 */
 	public abstract int[] batchInsertPs(int i) throws Exception;
 	
+	/**
+	 * insert rows in batches of batchSize rows, a transaction ends after the batch reaching commitInterval rows,
+	 * 0 inserts all rows in one transaction. returns rows inserted
+	 */
+	public abstract int bulkInsert(int rows, int batchSize, int commitInterval) throws Exception;
+	
+	/**
+	 * insert rows in one transaction with multi-row INSERT statements of width rows each, e.g. VALUES (...),(...).
+	 * width must not exceed getMaxInsertWidth(). returns statements executed
+	 */
+	public abstract int multiRowInsert(int rows, int width) throws Exception;
+	
 	/**
 	 * get DAO name
 	 */
@@ -55,10 +120,90 @@ public abstract class Dao {
 	
 	public static volatile long studentId = 100000;
 	
+	/**
+	 * keeps the isolation level of the connection
+	 */
+	public static final int ISOLATION_DEFAULT = -1;
+	
+	//--procedures of the sql scripts: in selects a row by key, out counts rows, in_out selects major by key,
+	//inout adds the count to the input, return selects the count, return_rs selects 2 result sets of rows
+	public static final String PROC_IN = "in", PROC_OUT = "out", PROC_IN_OUT = "in_out", PROC_INOUT = "inout",
+		PROC_RETURN = "return", PROC_RETURN_RS = "return_rs";
+	
+	public static final String[] PROCEDURES = new String[]{PROC_IN, PROC_OUT, PROC_IN_OUT, PROC_INOUT, PROC_RETURN, PROC_RETURN_RS};
+	
+	//input of procedure inout
+	static final int INOUT_VALUE = 10;
+	
+	/**
+	 * JDBC escape of a procedure call
+	 */
+	static String callSql(String procedure){
+		if(PROC_IN.equals(procedure) || PROC_OUT.equals(procedure) || PROC_INOUT.equals(procedure))
+			return "{call rexdb_test_proc_" + procedure + "(?)}";
+		else if(PROC_IN_OUT.equals(procedure))
+			return "{call rexdb_test_proc_in_out(?,?)}";
+		else
+			return "{call rexdb_test_proc_" + procedure + "()}";
+	}
+	
+	//--payload of new rows
+	public static final byte[] DEFAULT_PHOTO = new byte[]{1,2,3};
+	public static final String DEFAULT_REMARK = "This is Jim's infomation.";
+	static byte[] photo = DEFAULT_PHOTO;
+	static String remark = DEFAULT_REMARK;
+	
+	/**
+	 * sets payload of new rows, a photo of the given bytes and a remark of the given characters
+	 */
+	public static void setPayload(int photoBytes, int remarkChars){
+		byte[] bytes = new byte[photoBytes];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte)i;
+		}
+		
+		StringBuffer sb = new StringBuffer(remarkChars);
+		while(sb.length() < remarkChars){
+			sb.append(DEFAULT_REMARK, 0, Math.min(DEFAULT_REMARK.length(), remarkChars - sb.length()));
+		}
+		
+		photo = bytes;
+		remark = sb.toString();
+	}
+	
+	/**
+	 * restores the 3 bytes photo and short remark
+	 */
+	public static void resetPayload(){
+		photo = DEFAULT_PHOTO;
+		remark = DEFAULT_REMARK;
+	}
+	
+	/**
+	 * bytes of photo and remark in a new row
+	 */
+	public static int getPayloadBytes(){
+		return photo.length + remark.length();
+	}
+	
+	//a transaction of bulk inserts ends once it has commitInterval rows
+	static boolean isCommitPoint(int uncommitted, int commitInterval){
+		return commitInterval > 0 && uncommitted >= commitInterval;
+	}
+	
 	static synchronized long getId(){
 		return studentId++;
 	}
 	
+	//--values of updates, the major changes every time so an update never leaves a row as it was
+	static final String UPDATED_NAME = "Tom";
+	static int major = 10;
+	
+	static synchronized int nextMajor(){
+		major = major >= 30000 ? 11 : major + 1;
+		return major;
+	}
+	
 	/**
 	 * new student
 	 */
@@ -72,8 +217,8 @@ public abstract class Dao {
 		student.setEnrollmentTime(new Date());
 		student.setMajor(10);
 		student.setReadonly(1);
-		student.setPhoto(new byte[]{1,2,3});
-		student.setRemark("This is Jim's infomation.");
+		student.setPhoto(photo);
+		student.setRemark(remark);
 		
 		return student;
 	}
@@ -82,7 +227,13 @@ public abstract class Dao {
 	 * new student ps
 	 */
 	protected static Ps newPs(){
-		Ps ps = new Ps();
+		return addStudent(new Ps());
+	}
+	
+	/**
+	 * adds parameters of a new student
+	 */
+	protected static Ps addStudent(Ps ps){
 		ps.add(getId());
 		ps.add("Jim");
 		ps.add(1);
@@ -90,12 +241,30 @@ public abstract class Dao {
 		ps.add(new Date());
 		ps.add(new Date());
 		ps.add(10);
-		ps.add(new byte[]{1,2,3});
-		ps.add("This is Jim's infomation.");
+		ps.add(photo);
+		ps.add(remark);
 		ps.add(1);
 		return ps;
 	}
 	
+	/**
+	 * parameters of a student insert, dates as timestamps
+	 */
+	static Object[] insertValues(Student stu){
+		return new Object[]{
+			stu.getStudentId(),
+			stu.getName(),
+			stu.getSex(),
+			new java.sql.Timestamp(stu.getBirthday().getTime()),
+			new java.sql.Timestamp(stu.getBirthTime().getTime()),
+			new java.sql.Timestamp(stu.getEnrollmentTime().getTime()),
+			stu.getMajor(),
+			stu.getPhoto(),
+			stu.getRemark(),
+			stu.getReadonly()
+		};
+	}
+	
 	protected static Properties loadConnProperties(String resources) {
 		InputStream inputstream = getResourceAsStream(resources);
 		if(inputstream == null)
@@ -103,6 +272,7 @@ public abstract class Dao {
 		Properties properties = new Properties();
 		try {
 			properties.load(inputstream);
+			Embedded.override(resources, properties);
 			return properties;
 		} catch (IOException e) {
 			throw new RuntimeException(e);
@@ -153,6 +323,91 @@ public abstract class Dao {
 		return isPostgreSql == 1;
 	}
 	
+	//--multi-row inserts
+	static final int INSERT_COLUMNS = 10;
+	
+	static final String INSERT_INTO = "rexdb_test_student(STUDENT_ID, NAME, SEX, BIRTHDAY, BIRTH_TIME, ENROLLMENT_TIME, MAJOR, PHOTO, REMARK, READONLY)";
+	
+	static final String INSERT_VALUES = "(?,?,?,?,?,?,?,?,?,?)";
+	
+	/**
+	 * maximum bind parameters of a statement: 2100 of SQL Server (one is kept by the driver), 65535 of MySQL and Oracle,
+	 * 32767 of PostgreSQL drivers and the others
+	 */
+	public static int getMaxParameters() throws DBException{
+		String dialect = DB.getDialect().getName();
+		if("SQLSERVER".equals(dialect))
+			return 2099;
+		else if("MYSQL".equals(dialect) || "ORACLE".equals(dialect))
+			return 65535;
+		else
+			return 32767;
+	}
+	
+	//INSERT ALL of Oracle fails with ORA-24335 over 999 columns in its INTO clauses
+	static final int MAX_INSERT_ALL_COLUMNS = 999;
+	
+	/**
+	 * maximum rows of a multi-row insert, within the parameters of the dialect and the columns of INSERT ALL of Oracle
+	 */
+	public static int getMaxInsertWidth() throws DBException{
+		int width = getMaxParameters() / INSERT_COLUMNS;
+		return isOracle() ? Math.min(width, MAX_INSERT_ALL_COLUMNS / INSERT_COLUMNS) : width;
+	}
+	
+	/**
+	 * insert of rows, Oracle has no multi-row VALUES and inserts with INSERT ALL
+	 */
+	static String multiRowInsertSql(int rows){
+		StringBuffer sb = new StringBuffer();
+		if(isOracle()){
+			sb.append("INSERT ALL");
+			for (int i = 0; i < rows; i++) {
+				sb.append(" INTO ").append(INSERT_INTO).append(" VALUES ").append(INSERT_VALUES);
+			}
+			sb.append(" SELECT 1 FROM DUAL");
+		}else{
+			sb.append("INSERT INTO ").append(INSERT_INTO).append(" VALUES ");
+			for (int i = 0; i < rows; i++) {
+				if(i > 0) sb.append(',');
+				sb.append(INSERT_VALUES);
+			}
+		}
+		return sb.toString();
+	}
+	
+	static int isMySql = -1;
+	protected static boolean isMySql(){
+		if(isMySql == -1){
+			try {
+				if("MYSQL".equals(DB.getDialect().getName()))
+					isMySql=1;
+				else
+					isMySql=0;
+			} catch (DBException e) {
+				e.printStackTrace();
+			}
+		}
+		
+		return isMySql == 1;
+	}
+	
+	static int isOracle = -1;
+	protected static boolean isOracle(){
+		if(isOracle == -1){
+			try {
+				if("ORACLE".equals(DB.getDialect().getName()))
+					isOracle=1;
+				else
+					isOracle=0;
+			} catch (DBException e) {
+				e.printStackTrace();
+			}
+		}
+		
+		return isOracle == 1;
+	}
+	
 	protected static boolean isH2(){
 		if(isH2 == -1){
 			try {
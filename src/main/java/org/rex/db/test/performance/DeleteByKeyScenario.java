@@ -0,0 +1,71 @@
+package org.rex.db.test.performance;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * deletes rows one by one by primary keys, every seeded row is deleted once in the order of keys.
+ * rows are seeded again before an operation once the seeded rows run out. writes are not run by default, select them with scenario=deleteByKey
+ */
+public class DeleteByKeyScenario extends Scenario {
+
+	private final AtomicLong next = new AtomicLong();
+	private volatile long end;
+	private int seedRows;
+
+	@Override
+	public String getName() {
+		return "deleteByKey";
+	}
+
+	@Override
+	public int getRows() {
+		return 500;
+	}
+	
+	@Override
+	public int getTableRows() {
+		return 10000;
+	}
+	
+	@Override
+	public boolean isRowByRow() {
+		return true;
+	}
+	
+	@Override
+	public boolean isDefault() {
+		return false;
+	}
+	
+	@Override
+	public void setUp(Dao dao, int tableRows) throws Exception {
+		seedRows = Math.max(tableRows, 1);
+		seed(dao, seedRows);
+	}
+	
+	@Override
+	public synchronized void prepare(Dao dao, int rows) throws Exception {
+		if(end - next.get() < rows)
+			seed(dao, Math.max(seedRows, rows));
+	}
+
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		int result = 0;
+		for (int i = 0; i < rows; i++) {
+			long studentId = next.getAndIncrement();
+			long start = System.nanoTime();
+			result = dao.delete(studentId);
+			record(histogram, start);
+		}
+		return result;
+	}
+	
+	//inserts rows to delete, rows seeded before and not deleted yet are left in the table
+	synchronized void seed(Dao dao, int rows) throws Exception{
+		long first = Dao.studentId;
+		dao.batchInsert(rows);
+		end = Dao.studentId;
+		next.set(first);
+	}
+}
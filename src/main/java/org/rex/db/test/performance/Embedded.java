@@ -0,0 +1,96 @@
+package org.rex.db.test.performance;
+
+import java.util.Properties;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.rex.db.configuration.Configuration;
+
+/**
+ * In-process, in-memory database for tests without a database server. Once started, all frameworks
+ * connect to it instead of the database in conn.properties, it lives until the JVM exits.
+ * Only H2 and HSQLDB are supported, the embedded driver of Derby is not in lib.
+ */
+public class Embedded {
+
+	public static final String H2 = "h2", HSQLDB = "hsqldb";
+
+	private static String database;
+
+	//--connection properties, replace those of conn.properties
+	private static Properties properties;
+
+	//--hibernate dialect, replaces that of hibernate.properties
+	private static String hibernateDialect;
+
+	/**
+	 * starts the embedded database and points rexdb at it, other frameworks read the connection properties when they are created
+	 */
+	public static synchronized void start(String name) throws Exception{
+		Properties props = new Properties();
+		if(H2.equals(name)){
+			props.put("driverClassName", "org.h2.Driver");
+			props.put("url", "jdbc:h2:mem:rexdb;DB_CLOSE_DELAY=-1");
+			hibernateDialect = "org.hibernate.dialect.H2Dialect";
+		}else if(HSQLDB.equals(name)){
+			props.put("driverClassName", "org.hsqldb.jdbcDriver");
+			props.put("url", "jdbc:hsqldb:mem:rexdb");
+			hibernateDialect = "org.hibernate.dialect.HSQLDialect";
+		}else
+			throw new Exception("embedded database '"+name+"' not supported, h2 or hsqldb required.");
+		props.put("username", "sa");
+		props.put("password", "");
+
+		Class.forName(props.getProperty("driverClassName"));
+		database = name;
+		properties = props;
+
+		Configuration.getCurrentConfiguration().setDefaultDataSource(createDataSource());
+		System.out.println("--embedded: " + name + ", " + props.getProperty("url"));
+	}
+
+	public static boolean isEnabled(){
+		return database != null;
+	}
+
+	public static String getDatabase() {
+		return database;
+	}
+
+	/**
+	 * connection properties of the embedded database, driverClassName, url, username and password
+	 */
+	public static Properties getProperties(){
+		return properties;
+	}
+
+	/**
+	 * pool of the embedded database, configured like the pools in the configuration files
+	 */
+	public static BasicDataSource createDataSource(){
+		BasicDataSource bds = new BasicDataSource();
+		configure(bds);
+		return bds;
+	}
+
+	/**
+	 * points a pool at the embedded database, the pool must not have been used
+	 */
+	public static void configure(BasicDataSource bds){
+		bds.setDriverClassName(properties.getProperty("driverClassName"));
+		bds.setUrl(properties.getProperty("url"));
+		bds.setUsername(properties.getProperty("username"));
+		bds.setPassword(properties.getProperty("password"));
+	}
+
+	/**
+	 * replaces properties of a configuration file which depend on the database
+	 */
+	static void override(String resource, Properties props){
+		if(!isEnabled()) return;
+
+		if("conn.properties".equals(resource))
+			props.putAll(properties);
+		else if("hibernate.properties".equals(resource))
+			props.put("hibernate.dialect", hibernateDialect);
+	}
+}
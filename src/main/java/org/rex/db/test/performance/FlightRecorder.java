@@ -0,0 +1,208 @@
+package org.rex.db.test.performance;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDK Flight Recorder recording with the "profile" settings, and a summary of its CPU samples and allocation samples.
+ * The jdk.jfr API is called by reflection, it is available in java 11 and later (8u262 and later for OpenJDK 8).
+ */
+public class FlightRecorder {
+
+	static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+	static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+	static final String ALLOCATION_IN_NEW_TLAB = "jdk.ObjectAllocationInNewTLAB";
+	static final String ALLOCATION_OUTSIDE_TLAB = "jdk.ObjectAllocationOutsideTLAB";
+
+	private Object recording;
+
+	/**
+	 * is flight recorder available in this JVM
+	 */
+	public static boolean isSupported(){
+		try{
+			Class.forName("jdk.jfr.Recording");
+			return true;
+		}catch(Throwable e){
+			return false;
+		}
+	}
+
+	public void start() throws Exception{
+		Object configuration = Class.forName("jdk.jfr.Configuration").getMethod("getConfiguration", String.class).invoke(null, "profile");
+		recording = Class.forName("jdk.jfr.Recording").getConstructor(Class.forName("jdk.jfr.Configuration")).newInstance(configuration);
+		invoke(recording, "start");
+	}
+
+	/**
+	 * stops recording and writes it to the file
+	 */
+	public File stop(File file) throws Exception{
+		if(recording == null) return null;
+		try{
+			invoke(recording, "stop");
+			if(file.getParentFile() != null) file.getParentFile().mkdirs();
+			invoke(recording, "dump", invoke(file, "toPath"));
+			return file;
+		}finally{
+			invoke(recording, "close");
+			recording = null;
+		}
+	}
+
+	/**
+	 * reads a recording, counts CPU samples by the executing method and sampled allocation bytes by class and allocating method,
+	 * methods of the JDK are counted on their first caller outside the JDK.
+	 * only events of the given thread are counted, or all events if threadId is negative.
+	 */
+	public static Summary summarize(File file, long threadId) throws Exception{
+		Summary summary = new Summary();
+		List events = (List)Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Class.forName("java.nio.file.Path"))
+				.invoke(null, invoke(file, "toPath"));
+
+		for (int i = 0; i < events.size(); i++) {
+			Object event = events.get(i);
+			String type = (String)invoke(invoke(event, "getEventType"), "getName");
+
+			if(threadId >= 0 && threadId != threadId(event, EXECUTION_SAMPLE.equals(type) ? "sampledThread" : "eventThread"))
+				continue;
+			if(isRecorderEvent(event))
+				continue;
+
+			if(EXECUTION_SAMPLE.equals(type)){
+				summary.samples++;
+				add(summary.methods, callerFrame(event), 1);
+			}else if(ALLOCATION_SAMPLE.equals(type) || ALLOCATION_IN_NEW_TLAB.equals(type) || ALLOCATION_OUTSIDE_TLAB.equals(type)){
+				String field = ALLOCATION_SAMPLE.equals(type) ? "weight" : ALLOCATION_IN_NEW_TLAB.equals(type) ? "tlabSize" : "allocationSize";
+				if(!(Boolean)invoke(event, "hasField", field)) continue;
+
+				long bytes = (Long)invoke(event, "getLong", field);
+				Object objectClass = invoke(event, "getClass", "objectClass");
+				String name = objectClass == null ? "?" : (String)invoke(objectClass, "getName");
+				summary.allocatedBytes += bytes;
+				add(summary.allocations, name + " at " + callerFrame(event), bytes);
+			}
+		}
+		return summary;
+	}
+
+	static long threadId(Object event, String field) throws Exception{
+		if(!(Boolean)invoke(event, "hasField", field)) return -1;
+
+		Object thread = invoke(event, "getThread", field);
+		return thread == null ? -1 : (Long)invoke(thread, "getJavaThreadId");
+	}
+
+	//events raised by flight recorder itself, e.g. instrumenting event classes when the first recording starts
+	static boolean isRecorderEvent(Object event) throws Exception{
+		Object stackTrace = invoke(event, "getStackTrace");
+		if(stackTrace == null) return false;
+
+		List frames = (List)invoke(stackTrace, "getFrames");
+		for (int i = 0; i < frames.size(); i++) {
+			String type = (String)invoke(invoke(invoke(frames.get(i), "getMethod"), "getType"), "getName");
+			if(type.startsWith("jdk.jfr.")) return true;
+		}
+		return false;
+	}
+
+	//packages of the JDK, samples are counted on the framework or driver code calling them
+	static final String[] JDK_PACKAGES = new String[]{"java.", "javax.", "sun.", "com.sun.", "jdk."};
+
+	//method of the first stack frame outside the JDK, e.g. org.rex.db.util.ReflectUtil.getValue:123, or the top frame if all are in the JDK
+	static String callerFrame(Object event) throws Exception{
+		Object stackTrace = invoke(event, "getStackTrace");
+		if(stackTrace == null) return "?";
+
+		List frames = (List)invoke(stackTrace, "getFrames");
+		if(frames.isEmpty()) return "?";
+
+		String top = null;
+		for (int i = 0; i < frames.size(); i++) {
+			Object frame = frames.get(i);
+			Object method = invoke(frame, "getMethod");
+			String type = (String)invoke(invoke(method, "getType"), "getName");
+			String name = type + "." + invoke(method, "getName") + ":" + invoke(frame, "getLineNumber");
+			if(!isJdk(type)) return name;
+			if(top == null) top = name;
+		}
+		return top;
+	}
+
+	static boolean isJdk(String type){
+		for (int i = 0; i < JDK_PACKAGES.length; i++) {
+			if(type.startsWith(JDK_PACKAGES[i])) return true;
+		}
+		return false;
+	}
+
+	static void add(Map<String, Long> counts, String key, long value){
+		Long count = counts.get(key);
+		counts.put(key, count == null ? value : count + value);
+	}
+
+	//invokes a public method, looked up on public types only, since implementations of jdk.jfr are not exported
+	static Object invoke(Object target, String name, Object... args) throws Exception{
+		for (Class<?> clazz = target.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+			if(!Modifier.isPublic(clazz.getModifiers())) continue;
+
+			Method[] methods = clazz.getMethods();
+			for (int i = 0; i < methods.length; i++) {
+				if(methods[i].getName().equals(name) && methods[i].getParameterTypes().length == args.length &&
+						Modifier.isPublic(methods[i].getDeclaringClass().getModifiers()))
+					return methods[i].invoke(target, args);
+			}
+		}
+		throw new NoSuchMethodException(target.getClass().getName() + "." + name);
+	}
+
+	/**
+	 * hot methods and allocation sites of a recording
+	 */
+	public static class Summary{
+
+		private long samples;
+		private long allocatedBytes;
+		private Map<String, Long> methods = new LinkedHashMap<String, Long>();
+		private Map<String, Long> allocations = new LinkedHashMap<String, Long>();
+
+		public long getSamples() {
+			return samples;
+		}
+
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		/**
+		 * methods with most CPU samples
+		 */
+		public List<Map.Entry<String, Long>> getHotMethods(int top){
+			return top(methods, top);
+		}
+
+		/**
+		 * class and method allocating most sampled bytes
+		 */
+		public List<Map.Entry<String, Long>> getAllocationSites(int top){
+			return top(allocations, top);
+		}
+
+		static List<Map.Entry<String, Long>> top(Map<String, Long> counts, int top){
+			List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(counts.entrySet());
+			Collections.sort(entries, new Comparator<Map.Entry<String, Long>>(){
+				public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+					return o2.getValue().compareTo(o1.getValue());
+				}
+			});
+			return entries.subList(0, Math.min(top, entries.size()));
+		}
+	}
+}
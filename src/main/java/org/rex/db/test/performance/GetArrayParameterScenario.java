@@ -0,0 +1,29 @@
+package org.rex.db.test.performance;
+
+/**
+ * selects rows one by one by random primary keys, as beans. rexdb binds the key from an object array instead of Ps.
+ * other frameworks run the same as get, so it is not run by default
+ */
+public class GetArrayParameterScenario extends GetScenario {
+
+	@Override
+	public String getName() {
+		return "get-arrayParameter";
+	}
+	
+	@Override
+	public boolean isDefault() {
+		return false;
+	}
+	
+	@Override
+	public void setUp(Dao dao, int tableRows) throws Exception {
+		super.setUp(dao, tableRows);
+		RexdbDao.setKeyParameter(RexdbDao.PARAMETER_ARRAY);
+	}
+	
+	@Override
+	public void tearDown(Dao dao) throws Exception {
+		RexdbDao.setKeyParameter(RexdbDao.PARAMETER_PS);
+	}
+}
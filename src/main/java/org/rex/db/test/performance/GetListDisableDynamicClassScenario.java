@@ -0,0 +1,25 @@
+package org.rex.db.test.performance;
+
+import org.rex.db.configuration.Configuration;
+
+/**
+ * selects all rows as beans, rexdb maps beans by reflection instead of generated classes
+ */
+public class GetListDisableDynamicClassScenario extends GetListScenario {
+
+	@Override
+	public String getName() {
+		return "getList-disableDynamicClass";
+	}
+	
+	@Override
+	public void setUp(Dao dao, int tableRows) throws Exception {
+		super.setUp(dao, tableRows);
+		Configuration.getCurrentConfiguration().setDynamicClass(false);
+	}
+	
+	@Override
+	public void tearDown(Dao dao) throws Exception {
+		Configuration.getCurrentConfiguration().setDynamicClass(true);
+	}
+}
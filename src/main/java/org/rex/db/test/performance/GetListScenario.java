@@ -0,0 +1,41 @@
+package org.rex.db.test.performance;
+
+import java.util.List;
+
+/**
+ * selects all rows as beans
+ */
+public class GetListScenario extends Scenario {
+
+	@Override
+	public String getName() {
+		return "getList";
+	}
+
+	@Override
+	public int getRows() {
+		return 50000;
+	}
+	
+	@Override
+	public int getTableRows() {
+		return 5000;
+	}
+	
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		long start = System.nanoTime();
+		List result = query(dao);
+		record(histogram, start);
+		return result;
+	}
+	
+	protected List query(Dao dao) throws Exception{
+		return dao.getList();
+	}
+}
@@ -0,0 +1,19 @@
+package org.rex.db.test.performance;
+
+import java.util.List;
+
+/**
+ * selects all rows as maps
+ */
+public class GetMapListScenario extends GetListScenario {
+
+	@Override
+	public String getName() {
+		return "getMapList";
+	}
+
+	@Override
+	protected List query(Dao dao) throws Exception {
+		return dao.getMapList();
+	}
+}
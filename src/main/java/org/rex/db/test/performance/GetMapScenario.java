@@ -0,0 +1,17 @@
+package org.rex.db.test.performance;
+
+/**
+ * selects rows one by one by random primary keys, as maps
+ */
+public class GetMapScenario extends GetScenario {
+
+	@Override
+	public String getName() {
+		return "getMap";
+	}
+	
+	@Override
+	protected Object get(Dao dao, long studentId) throws Exception{
+		return dao.getMap(studentId);
+	}
+}
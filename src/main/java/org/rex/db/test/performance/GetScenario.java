@@ -0,0 +1,48 @@
+package org.rex.db.test.performance;
+
+/**
+ * selects rows one by one by random primary keys, as beans
+ */
+public class GetScenario extends KeyScenario {
+
+	@Override
+	public String getName() {
+		return "get";
+	}
+
+	@Override
+	public int getRows() {
+		return 5000;
+	}
+	
+	@Override
+	public int getTableRows() {
+		return 10000;
+	}
+	
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+	
+	@Override
+	public boolean isRowByRow() {
+		return true;
+	}
+
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		Object result = null;
+		for (int i = 0; i < rows; i++) {
+			long studentId = keys.next();
+			long start = System.nanoTime();
+			result = get(dao, studentId);
+			record(histogram, start);
+		}
+		return result;
+	}
+	
+	protected Object get(Dao dao, long studentId) throws Exception{
+		return dao.get(studentId);
+	}
+}
@@ -1,24 +1,52 @@
 package org.rex.db.test.performance;
 
 import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import javax.persistence.ParameterMode;
+
+import org.hibernate.ConnectionReleaseMode;
 import org.hibernate.Query;
+import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.jdbc.Work;
+import org.hibernate.procedure.ProcedureCall;
+import org.hibernate.procedure.ProcedureOutputs;
+import org.hibernate.result.Output;
+import org.hibernate.result.ResultSetOutput;
 import org.hibernate.service.ServiceRegistry;
+import org.rex.db.test.Student;
 
 public class HibernateDao extends Dao{
 	
 	static SessionFactory cf = null;
 	
+	static volatile boolean hqlUpdate = false;
+	
+	/**
+	 * updates rows with HQL update statements instead of loading entities and flushing the changes found by dirty checking
+	 */
+	public static void setHqlUpdate(boolean hql){
+		hqlUpdate = hql;
+	}
+	
 	static Session getSession() throws Exception {
+		return getSessionFactory().openSession();
+	}
+	
+	static SessionFactory getSessionFactory() throws Exception {
 		if (cf == null) {
 
 			Properties conn = loadConnProperties("conn.properties");
@@ -46,7 +74,7 @@ public class HibernateDao extends Dao{
 			cf = configuration.buildSessionFactory(serviceRegistry);
 		}
 
-		return cf.openSession();
+		return cf;
 	}
 	
 	//-----------
@@ -67,6 +95,59 @@ public class HibernateDao extends Dao{
 	public int insertPs() throws Exception {
 		return insert();
 	}
+	
+	//HQL has no multi-row insert, rows are inserted with native SQL
+	@Override
+	public int multiRowInsert(int rows, int width) throws Exception {
+		Session session = getSession();
+		try {
+			int statements = 0;
+			Transaction tx = session.beginTransaction();
+			for (int i = 0; i < rows; i += width) {
+				int size = Math.min(width, rows - i);
+				SQLQuery query = session.createSQLQuery(multiRowInsertSql(size));
+				for (int j = 0; j < size; j++) {
+					Object[] values = insertValues(super.newStudent());
+					for (int k = 0; k < values.length; k++) {
+						query.setParameter(j * INSERT_COLUMNS + k, values[k]);
+					}
+				}
+				query.executeUpdate();
+				statements++;
+			}
+			tx.commit();
+			return statements;
+		} finally {
+			session.close();
+		}
+	}
+	
+	//the JDBC batch is flushed every batchSize rows, up to hibernate.jdbc.batch_size of the session factory
+	@Override
+	public int bulkInsert(int rows, int batchSize, int commitInterval) throws Exception {
+		Session session = getSession();
+		try {
+			int inserted = 0;
+			while(inserted < rows){
+				int count = 0;
+				Transaction tx = session.beginTransaction();
+				do{
+					int size = Math.min(batchSize, rows - inserted - count);
+					for (int i = 0; i < size; i++) {
+						session.save(super.newStudent());
+					}
+					session.flush();
+					session.clear();
+					count += size;
+				}while(inserted + count < rows && !isCommitPoint(count, commitInterval));
+				tx.commit();
+				inserted += count;
+			}
+			return inserted;
+		} finally {
+			session.close();
+		}
+	}
 
 	@Override
 	public int[] batchInsert(int rows) throws Exception {
@@ -117,6 +198,74 @@ public class HibernateDao extends Dao{
 		}
 	}
 
+	@Override
+	public Object get(long studentId) throws Exception {
+		Session session = getSession();
+		try {
+			return session.get(Student.class, studentId);
+		} finally {
+			session.close();
+		}
+	}
+	
+	@Override
+	public Map getMap(long studentId) throws Exception {
+		Session session = getSession();
+		try {
+			Query query = session.createQuery("select new map(s.studentId as studentId, s.name as name, s.sex as sex,"
+					+ "s.birthday as birthday, s.birthTime as birthTime, s.enrollmentTime as enrollmentTime,"
+					+ "s.major as major, s.photo as photo, s.remark as remark,s.readonly as readonly) from Student s where s.studentId = :studentId");
+			return (Map)query.setLong("studentId", studentId).uniqueResult();
+		} finally {
+			session.close();
+		}
+	}
+	
+	@Override
+	public List getPage(int offset, int rows) throws Exception {
+		Session session = getSession();
+		try {
+			return session.createQuery("from Student order by studentId").setFirstResult(offset).setMaxResults(rows).list();
+		} finally {
+			session.close();
+		}
+	}
+	
+	@Override
+	public List getPageAfter(long studentId, int rows) throws Exception {
+		Session session = getSession();
+		try {
+			return session.createQuery("from Student where studentId > :studentId order by studentId")
+					.setLong("studentId", studentId).setMaxResults(rows).list();
+		} finally {
+			session.close();
+		}
+	}
+	
+	@Override
+	public long stream(int fetchSize) throws Exception {
+		Session session = getSession();
+		try {
+			Transaction tx = session.beginTransaction();
+			ScrollableResults results = session.createQuery("from Student").setFetchSize(fetchSize).setReadOnly(true)
+					.scroll(ScrollMode.FORWARD_ONLY);
+			long rows = 0;
+			try{
+				//entities are evicted from the session once read, or it keeps all of them
+				while(results.next()){
+					session.evict(results.get(0));
+					rows++;
+				}
+			}finally{
+				results.close();
+			}
+			tx.commit();
+			return rows;
+		} finally {
+			session.close();
+		}
+	}
+
 	@Override
 	public int delete() throws Exception {
 		Session session = getSession();
@@ -130,6 +279,149 @@ public class HibernateDao extends Dao{
 		}
 	}
 	
+	@Override
+	public int delete(long studentId) throws Exception {
+		Session session = getSession();
+		try {
+			Transaction tx = session.beginTransaction();
+			Object student = session.get(Student.class, studentId);
+			if(student != null)
+				session.delete(student);
+			tx.commit();
+			return student == null ? 0 : 1;
+		} finally {
+			session.close();
+		}
+	}
+	
+	@Override
+	public int update(long studentId) throws Exception {
+		Session session = getSession();
+		try {
+			Transaction tx = session.beginTransaction();
+			int i = update(session, studentId);
+			tx.commit();
+			return i;
+		} finally {
+			session.close();
+		}
+	}
+	
+	@Override
+	public int[] batchUpdate(long[] studentIds) throws Exception {
+		int[] c = new int[studentIds.length];
+		Session session = getSession();
+		try {
+			Transaction tx = session.beginTransaction();
+			for (int i = 0; i < studentIds.length; i++) {
+				c[i] = update(session, studentIds[i]);
+			}
+			tx.commit();
+			return c;
+		} finally {
+			session.close();
+		}
+	}
+	
+	@Override
+	public int transaction(long[] studentIds, int isolation, boolean rollback) throws Exception {
+		//connections go back to the pool after the transaction by default, the session keeps it to restore the isolation level
+		Session session = isolation == ISOLATION_DEFAULT ? getSession() : 
+			getSessionFactory().withOptions().connectionReleaseMode(ConnectionReleaseMode.ON_CLOSE).openSession();
+		try {
+			int rows = 0;
+			Transaction tx = session.beginTransaction();
+			int previous = isolation == ISOLATION_DEFAULT ? ISOLATION_DEFAULT : setIsolation(session, isolation);
+			try {
+				try {
+					for (int i = 0; i < studentIds.length; i++) {
+						rows += updateHql(session, studentIds[i]);
+					}
+				} catch (Exception e) {
+					tx.rollback();
+					throw e;
+				}
+				
+				if(rollback)
+					tx.rollback();
+				else
+					tx.commit();
+				return rows;
+			} finally {
+				//pooled connections keep the isolation level, it is restored after the transaction on the same connection
+				//because drivers commit (H2) or refuse (PostgreSQL) a change in the middle of a transaction
+				if(previous != ISOLATION_DEFAULT) setIsolation(session, previous);
+			}
+		} finally {
+			session.close();
+		}
+	}
+	
+	//sets isolation level of the connection of a session, returns the level before
+	static int setIsolation(Session session, final int isolation){
+		final int[] previous = new int[1];
+		session.doWork(new Work(){
+			public void execute(Connection connection) throws SQLException {
+				previous[0] = connection.getTransactionIsolation();
+				connection.setTransactionIsolation(isolation);
+			}
+		});
+		return previous[0];
+	}
+	
+	//rows of result sets are arrays of columns, procedures are not mapped to entities
+	@Override
+	public Object call(String procedure, long studentId) throws Exception {
+		Session session = getSession();
+		try {
+			ProcedureCall call = session.createStoredProcedureCall("rexdb_test_proc_" + procedure);
+			if(PROC_IN.equals(procedure))
+				call.registerParameter(1, Long.class, ParameterMode.IN).bindValue(studentId);
+			else if(PROC_OUT.equals(procedure))
+				call.registerParameter(1, Integer.class, ParameterMode.OUT);
+			else if(PROC_IN_OUT.equals(procedure)){
+				call.registerParameter(1, Long.class, ParameterMode.IN).bindValue(studentId);
+				call.registerParameter(2, Integer.class, ParameterMode.OUT);
+			}else if(PROC_INOUT.equals(procedure))
+				call.registerParameter(1, Integer.class, ParameterMode.INOUT).bindValue(INOUT_VALUE);
+			
+			ProcedureOutputs outputs = call.getOutputs();
+			if(PROC_OUT.equals(procedure) || PROC_INOUT.equals(procedure))
+				return outputs.getOutputParameterValue(1);
+			else if(PROC_IN_OUT.equals(procedure))
+				return outputs.getOutputParameterValue(2);
+			
+			List results = new ArrayList();
+			do{
+				Output output = outputs.getCurrent();
+				if(output != null && output.isResultSet())
+					results.add(((ResultSetOutput)output).getResultList());
+			}while(outputs.goToNext());
+			return results;
+		} finally {
+			session.close();
+		}
+	}
+	
+	int updateHql(Session session, long studentId) {
+		return session.createQuery("update Student set name = :name, major = :major where studentId = :studentId")
+				.setString("name", UPDATED_NAME).setInteger("major", nextMajor()).setLong("studentId", studentId).executeUpdate();
+	}
+	
+	//HQL update, or changes of a loaded entity flushed at commit
+	int update(Session session, long studentId) {
+		if(hqlUpdate){
+			return updateHql(session, studentId);
+		}else{
+			Student student = (Student)session.get(Student.class, studentId);
+			if(student == null)
+				return 0;
+			student.setName(UPDATED_NAME);
+			student.setMajor(nextMajor());
+			return 1;
+		}
+	}
+	
 	@Override
 	public String getName() throws Exception {
 		return "hibernate";
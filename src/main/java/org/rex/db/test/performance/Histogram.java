@@ -0,0 +1,155 @@
+package org.rex.db.test.performance;
+
+/**
+ * Low overhead latency histogram with log-linear buckets, values are in nanoseconds.
+ * Values below 128 are counted exactly, larger values are kept with a relative error below 2%.
+ * Not thread safe, use one histogram per thread and merge them.
+ */
+public class Histogram {
+
+	static final int SUB_BUCKET_BITS = 7;
+	static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+	static final int SUB_BUCKET_HALF_BITS = SUB_BUCKET_BITS - 1;
+	static final int BUCKETS = (64 - SUB_BUCKET_HALF_BITS) * SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+
+	private final long[] counts = new long[BUCKETS];
+
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * record a value
+	 */
+	public void record(long value){
+		if(value < 0) value = 0;
+		counts[indexOf(value)]++;
+		count++;
+		sum += value;
+		if(value < min) min = value;
+		if(value > max) max = value;
+	}
+
+	/**
+	 * add all values of another histogram
+	 */
+	public void merge(Histogram other){
+		if(other == null || other.count == 0) return;
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		sum += other.sum;
+		if(other.min < min) min = other.min;
+		if(other.max > max) max = other.max;
+	}
+
+	/**
+	 * remove all values
+	 */
+	public void reset(){
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = 0;
+		}
+		count = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0 : (double)sum / count;
+	}
+
+	/**
+	 * value at percentile, e.g. 99.9
+	 */
+	public long getValueAtPercentile(double percentile){
+		if(count == 0) return 0;
+
+		long rank = (long)Math.ceil(percentile / 100 * count);
+		if(rank < 1) rank = 1;
+		if(rank > count) rank = count;
+
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if(seen >= rank)
+				return Math.max(Math.min(highestValueAt(i), max), getMin());
+		}
+		return max;
+	}
+
+	/**
+	 * compact text form, count,sum,min,max;index:count,index:count...
+	 */
+	public String encode(){
+		StringBuffer sb = new StringBuffer();
+		sb.append(count).append(',').append(sum).append(',').append(min).append(',').append(max).append(';');
+		boolean first = true;
+		for (int i = 0; i < counts.length; i++) {
+			if(counts[i] == 0) continue;
+			if(!first) sb.append(',');
+			sb.append(i).append(':').append(counts[i]);
+			first = false;
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * histogram from the text form of encode()
+	 */
+	public static Histogram decode(String text){
+		Histogram histogram = new Histogram();
+		if(text == null || text.length() == 0) return histogram;
+
+		int split = text.indexOf(';');
+		String[] totals = text.substring(0, split).split(",");
+		histogram.count = Long.parseLong(totals[0]);
+		histogram.sum = Long.parseLong(totals[1]);
+		histogram.min = Long.parseLong(totals[2]);
+		histogram.max = Long.parseLong(totals[3]);
+
+		String buckets = text.substring(split + 1);
+		if(buckets.length() > 0){
+			String[] pairs = buckets.split(",");
+			for (int i = 0; i < pairs.length; i++) {
+				int colon = pairs[i].indexOf(':');
+				histogram.counts[Integer.parseInt(pairs[i].substring(0, colon))] = Long.parseLong(pairs[i].substring(colon + 1));
+			}
+		}
+		return histogram;
+	}
+
+	//----------buckets
+	static int indexOf(long value){
+		if(value < SUB_BUCKET_COUNT)
+			return (int)value;
+
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_HALF_BITS;
+		return shift * SUB_BUCKET_HALF + (int)(value >>> shift);
+	}
+
+	static long highestValueAt(int index){
+		if(index < SUB_BUCKET_COUNT)
+			return index;
+
+		int shift = index / SUB_BUCKET_HALF - 1;
+		long sub = index - shift * SUB_BUCKET_HALF;
+		return ((sub + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,17 @@
+package org.rex.db.test.performance;
+
+/**
+ * inserts rows one by one, with prepared parameters
+ */
+public class InsertPsScenario extends InsertScenario {
+
+	@Override
+	public String getName() {
+		return "insertPs";
+	}
+
+	@Override
+	protected int insert(Dao dao) throws Exception {
+		return dao.insertPs();
+	}
+}
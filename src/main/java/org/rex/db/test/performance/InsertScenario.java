@@ -0,0 +1,37 @@
+package org.rex.db.test.performance;
+
+/**
+ * inserts rows one by one, with a bean
+ */
+public class InsertScenario extends Scenario {
+
+	@Override
+	public String getName() {
+		return "insert";
+	}
+
+	@Override
+	public int getRows() {
+		return 500;
+	}
+	
+	@Override
+	public boolean isRowByRow() {
+		return true;
+	}
+
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		int result = 0;
+		for (int i = 0; i < rows; i++) {
+			long start = System.nanoTime();
+			result = insert(dao);
+			record(histogram, start);
+		}
+		return result;
+	}
+	
+	protected int insert(Dao dao) throws Exception{
+		return dao.insert();
+	}
+}
@@ -1,11 +1,14 @@
 package org.rex.db.test.performance;
 
 import java.sql.Blob;
+import java.sql.CallableStatement;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -13,6 +16,8 @@ import java.util.Map;
 import java.util.Properties;
 
 import org.apache.commons.dbcp.BasicDataSource;
+import org.rex.DB;
+import org.rex.db.dialect.LimitHandler;
 import org.rex.db.test.Student;
 
 public class JdbcDao extends Dao{
@@ -36,19 +41,7 @@ public class JdbcDao extends Dao{
 		PreparedStatement ps = null;
 		try {
 			ps = conn.prepareStatement(sql);
-			
-			Student stu  = newStudent();
-			ps.setLong(1, stu.getStudentId());
-			ps.setString(2, stu.getName());
-			ps.setInt(3, stu.getSex());
-			ps.setTimestamp(4, new java.sql.Timestamp(stu.getBirthday().getTime()));
-			ps.setTimestamp(5, new java.sql.Timestamp(stu.getBirthTime().getTime()));
-			ps.setTimestamp(6, new java.sql.Timestamp(stu.getEnrollmentTime().getTime()));
-			ps.setInt(7, stu.getMajor());
-			ps.setBytes(8, stu.getPhoto());
-			ps.setString(9, stu.getRemark());
-			ps.setInt(10, stu.getReadonly());
-			
+			setStudent(ps, 1, newStudent());
 			return ps.executeUpdate();
 		}finally{
 			ps.close();
@@ -56,6 +49,20 @@ public class JdbcDao extends Dao{
 		}
 	}
 	
+	//parameters of inserts, from the given index
+	void setStudent(PreparedStatement ps, int index, Student stu) throws SQLException{
+		ps.setLong(index, stu.getStudentId());
+		ps.setString(index + 1, stu.getName());
+		ps.setInt(index + 2, stu.getSex());
+		ps.setTimestamp(index + 3, new java.sql.Timestamp(stu.getBirthday().getTime()));
+		ps.setTimestamp(index + 4, new java.sql.Timestamp(stu.getBirthTime().getTime()));
+		ps.setTimestamp(index + 5, new java.sql.Timestamp(stu.getEnrollmentTime().getTime()));
+		ps.setInt(index + 6, stu.getMajor());
+		ps.setBytes(index + 7, stu.getPhoto());
+		ps.setString(index + 8, stu.getRemark());
+		ps.setInt(index + 9, stu.getReadonly());
+	}
+	
 	@Override
 	public int insertPs() throws Exception {
 		return insert();
@@ -73,36 +80,7 @@ public class JdbcDao extends Dao{
 			ps = conn.prepareStatement(sql);
 			rs = ps.executeQuery();
 			while(rs.next()){
-				Student student = new Student();
-				student.setStudentId(rs.getLong("STUDENT_ID"));
-				student.setName(rs.getString("NAME"));
-				student.setSex(rs.getInt("SEX"));
-				student.setBirthday(rs.getDate("BIRTHDAY"));
-				student.setBirthTime(rs.getTime("BIRTH_TIME"));
-				student.setEnrollmentTime(rs.getTimestamp("ENROLLMENT_TIME"));
-				student.setMajor(rs.getInt("MAJOR"));
-				
-				if(super.isPostgreSql()){
-					student.setPhoto(rs.getBytes("PHOTO"));
-					student.setRemark(rs.getString("REMARK"));
-				}else{
-				    Blob blob = rs.getBlob("PHOTO");
-				    byte[] photo = null;
-				    if (null != blob) {
-				    	photo = blob.getBytes(1, (int) blob.length());
-				    }
-				    
-				    String remark = null;
-				    Clob clob = rs.getClob("REMARK");
-				    if (clob != null) {
-				      int size = (int) clob.length();
-				      remark = clob.getSubString(1, size);
-				    }
-					student.setPhoto(photo);
-					student.setRemark(remark);
-				}
-				student.setReadonly(rs.getInt("READONLY"));
-				list.add(student);
+				list.add(readStudent(rs));
 			}
 		}finally{
 			rs.close();
@@ -113,6 +91,175 @@ public class JdbcDao extends Dao{
 	}
 	
 
+	@Override
+	public Object get(long studentId) throws Exception {
+		Connection conn = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try{
+			conn = bds.getConnection();
+			ps = conn.prepareStatement("SELECT * FROM rexdb_test_student WHERE student_id = ?");
+			ps.setLong(1, studentId);
+			rs = ps.executeQuery();
+			return rs.next() ? readStudent(rs) : null;
+		}finally{
+			if(rs != null) rs.close();
+			if(ps != null) ps.close();
+			if(conn != null) conn.close();
+		}
+	}
+	
+	@Override
+	public Map getMap(long studentId) throws Exception {
+		Connection conn = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try{
+			conn = bds.getConnection();
+			ps = conn.prepareStatement("SELECT * FROM rexdb_test_student WHERE student_id = ?");
+			ps.setLong(1, studentId);
+			rs = ps.executeQuery();
+			return rs.next() ? readStudentMap(rs) : null;
+		}finally{
+			if(rs != null) rs.close();
+			if(ps != null) ps.close();
+			if(conn != null) conn.close();
+		}
+	}
+	
+	@Override
+	public List getPage(int offset, int rows) throws Exception {
+		return getPage("SELECT * FROM rexdb_test_student ORDER BY student_id", null, DB.getDialect().getLimitHandler(offset, rows));
+	}
+	
+	@Override
+	public List getPageAfter(long studentId, int rows) throws Exception {
+		return getPage("SELECT * FROM rexdb_test_student WHERE student_id > ? ORDER BY student_id", studentId, DB.getDialect().getLimitHandler(rows));
+	}
+	
+	//paging sql of the dialect, the same as rexdb
+	List getPage(String sql, Long studentId, LimitHandler limit) throws Exception {
+		List<Student> list = new ArrayList<Student>();
+		Connection conn = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try{
+			conn = bds.getConnection();
+			ps = conn.prepareStatement(limit.wrapSql(sql));
+			if(studentId != null)
+				ps.setLong(1, studentId);
+			limit.afterSetParameters(ps, studentId == null ? 0 : 1);
+			rs = ps.executeQuery();
+			while(rs.next()){
+				list.add(readStudent(rs));
+			}
+		}finally{
+			if(rs != null) rs.close();
+			if(ps != null) ps.close();
+			if(conn != null) conn.close();
+		}
+		return list;
+	}
+	
+	@Override
+	public long stream(int fetchSize) throws Exception {
+		String sql = "SELECT * FROM rexdb_test_student";
+		long rows = 0;
+		Connection conn = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try{
+			conn = bds.getConnection();
+			//some drivers, e.g. postgresql, only use a cursor in a transaction
+			conn.setAutoCommit(false);
+			ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(fetchSize);
+			rs = ps.executeQuery();
+			while(rs.next()){
+				readStudent(rs);
+				rows++;
+			}
+			conn.commit();
+		}finally{
+			if(rs != null) rs.close();
+			if(ps != null) ps.close();
+			if(conn != null){
+				conn.setAutoCommit(true);
+				conn.close();
+			}
+		}
+		return rows;
+	}
+	
+	//row to bean
+	Student readStudent(ResultSet rs) throws SQLException{
+		Student student = new Student();
+		student.setStudentId(rs.getLong("STUDENT_ID"));
+		student.setName(rs.getString("NAME"));
+		student.setSex(rs.getInt("SEX"));
+		student.setBirthday(rs.getDate("BIRTHDAY"));
+		student.setBirthTime(rs.getTime("BIRTH_TIME"));
+		student.setEnrollmentTime(rs.getTimestamp("ENROLLMENT_TIME"));
+		student.setMajor(rs.getInt("MAJOR"));
+		
+		if(super.isPostgreSql()){
+			student.setPhoto(rs.getBytes("PHOTO"));
+			student.setRemark(rs.getString("REMARK"));
+		}else{
+		    Blob blob = rs.getBlob("PHOTO");
+		    byte[] photo = null;
+		    if (null != blob) {
+		    	photo = blob.getBytes(1, (int) blob.length());
+		    }
+		    
+		    String remark = null;
+		    Clob clob = rs.getClob("REMARK");
+		    if (clob != null) {
+		      int size = (int) clob.length();
+		      remark = clob.getSubString(1, size);
+		    }
+			student.setPhoto(photo);
+			student.setRemark(remark);
+		}
+		student.setReadonly(rs.getInt("READONLY"));
+		return student;
+	}
+	
+	//row to map
+	Map readStudentMap(ResultSet rs) throws SQLException{
+		Map student = new HashMap();
+		student.put("studentId", rs.getLong("STUDENT_ID"));
+		student.put("name", rs.getString("NAME"));
+		student.put("sex", rs.getInt("SEX"));
+		student.put("birthday", rs.getDate("BIRTHDAY"));
+		student.put("birthTime", rs.getTime("BIRTH_TIME"));
+		student.put("enrollmentTime", rs.getTimestamp("ENROLLMENT_TIME"));
+		student.put("major", rs.getInt("MAJOR"));
+		
+		if(super.isPostgreSql()){
+			student.put("photo", rs.getBytes("PHOTO"));
+			student.put("remark", rs.getString("REMARK"));
+		}else{
+		    Blob blob = rs.getBlob("PHOTO");
+		    byte[] photo = null;
+		    if (null != blob) {
+		    	photo = blob.getBytes(1, (int) blob.length());
+		    }
+		    
+		    String remark = null;
+		    Clob clob = rs.getClob("REMARK");
+		    if (clob != null) {
+		      int size = (int) clob.length();
+		      remark = clob.getSubString(1, size);
+		    }
+			student.put("photo", photo);
+			student.put("remark", remark);
+		}
+		
+		student.put("readonly", rs.getInt("READONLY"));
+		return student;
+	}
+	
 	@Override
 	public List getMapList() throws Exception {
 		String sql = "SELECT * FROM rexdb_test_student";
@@ -125,37 +272,7 @@ public class JdbcDao extends Dao{
 			ps = conn.prepareStatement(sql);
 			rs = ps.executeQuery();
 			while(rs.next()){
-				Map student = new HashMap();
-				student.put("studentId", rs.getLong("STUDENT_ID"));
-				student.put("name", rs.getString("NAME"));
-				student.put("sex", rs.getInt("SEX"));
-				student.put("birthday", rs.getDate("BIRTHDAY"));
-				student.put("birthTime", rs.getTime("BIRTH_TIME"));
-				student.put("enrollmentTime", rs.getTimestamp("ENROLLMENT_TIME"));
-				student.put("major", rs.getInt("MAJOR"));
-				
-				if(super.isPostgreSql()){
-					student.put("photo", rs.getBytes("PHOTO"));
-					student.put("remark", rs.getString("REMARK"));
-				}else{
-				    Blob blob = rs.getBlob("PHOTO");
-				    byte[] photo = null;
-				    if (null != blob) {
-				    	photo = blob.getBytes(1, (int) blob.length());
-				    }
-				    
-				    String remark = null;
-				    Clob clob = rs.getClob("REMARK");
-				    if (clob != null) {
-				      int size = (int) clob.length();
-				      remark = clob.getSubString(1, size);
-				    }
-					student.put("photo", photo);
-					student.put("remark", remark);
-				}
-				
-				student.put("readonly", rs.getInt("READONLY"));
-				list.add(student);
+				list.add(readStudentMap(rs));
 			}
 		}finally{
 			rs.close();
@@ -178,6 +295,176 @@ public class JdbcDao extends Dao{
 		}
 	}
 
+	@Override
+	public int delete(long studentId) throws Exception {
+		Connection conn = bds.getConnection();
+		PreparedStatement ps = null;
+		try {
+			ps = conn.prepareStatement("DELETE FROM rexdb_test_student WHERE student_id = ?");
+			ps.setLong(1, studentId);
+			return ps.executeUpdate();
+		}finally{
+			if(ps != null) ps.close();
+			conn.close();
+		}
+	}
+	
+	@Override
+	public int update(long studentId) throws Exception {
+		Connection conn = bds.getConnection();
+		PreparedStatement ps = null;
+		try {
+			ps = conn.prepareStatement("UPDATE rexdb_test_student SET name = ?, major = ? WHERE student_id = ?");
+			ps.setString(1, UPDATED_NAME);
+			ps.setInt(2, nextMajor());
+			ps.setLong(3, studentId);
+			return ps.executeUpdate();
+		}finally{
+			if(ps != null) ps.close();
+			conn.close();
+		}
+	}
+	
+	@Override
+	public int[] batchUpdate(long[] studentIds) throws Exception {
+		Connection conn = bds.getConnection();
+		PreparedStatement ps = null;
+		try {
+			conn.setAutoCommit(false);
+			ps = conn.prepareStatement("UPDATE rexdb_test_student SET name = ?, major = ? WHERE student_id = ?");
+			for (int i = 0; i < studentIds.length; i++) {
+				ps.setString(1, UPDATED_NAME);
+				ps.setInt(2, nextMajor());
+				ps.setLong(3, studentIds[i]);
+				ps.addBatch();
+			}
+			int[] r = ps.executeBatch();
+			conn.commit();
+			return r;
+		}catch(Exception e){
+			conn.rollback();
+			throw e;
+		}finally{
+			if(ps != null) ps.close();
+			conn.close();
+		}
+	}
+
+	@Override
+	public int transaction(long[] studentIds, int isolation, boolean rollback) throws Exception {
+		Connection conn = bds.getConnection();
+		PreparedStatement ps = null;
+		int previous = isolation == ISOLATION_DEFAULT ? ISOLATION_DEFAULT : conn.getTransactionIsolation();
+		try {
+			if(isolation != ISOLATION_DEFAULT)
+				conn.setTransactionIsolation(isolation);
+			conn.setAutoCommit(false);
+			ps = conn.prepareStatement("UPDATE rexdb_test_student SET name = ?, major = ? WHERE student_id = ?");
+			
+			int rows = 0;
+			for (int i = 0; i < studentIds.length; i++) {
+				ps.setString(1, UPDATED_NAME);
+				ps.setInt(2, nextMajor());
+				ps.setLong(3, studentIds[i]);
+				rows += ps.executeUpdate();
+			}
+			
+			if(rollback)
+				conn.rollback();
+			else
+				conn.commit();
+			return rows;
+		}catch(Exception e){
+			conn.rollback();
+			throw e;
+		}finally{
+			if(ps != null) ps.close();
+			//pooled connections keep the isolation level
+			if(previous != ISOLATION_DEFAULT) conn.setTransactionIsolation(previous);
+			conn.close();
+		}
+	}
+
+	@Override
+	public Object call(String procedure, long studentId) throws Exception {
+		Connection conn = bds.getConnection();
+		CallableStatement cs = null;
+		try {
+			cs = conn.prepareCall(callSql(procedure));
+			if(PROC_IN.equals(procedure))
+				cs.setLong(1, studentId);
+			else if(PROC_OUT.equals(procedure))
+				cs.registerOutParameter(1, Types.INTEGER);
+			else if(PROC_IN_OUT.equals(procedure)){
+				cs.setLong(1, studentId);
+				cs.registerOutParameter(2, Types.INTEGER);
+			}else if(PROC_INOUT.equals(procedure)){
+				cs.setInt(1, INOUT_VALUE);
+				cs.registerOutParameter(1, Types.INTEGER);
+			}
+			
+			//every result set, then out parameters
+			List results = new ArrayList();
+			boolean isResultSet = cs.execute();
+			while(isResultSet || cs.getUpdateCount() != -1){
+				if(isResultSet){
+					ResultSet rs = cs.getResultSet();
+					List list = new ArrayList();
+					try{
+						while(rs.next()){
+							list.add(PROC_RETURN.equals(procedure) ? rs.getInt(1) : readStudentMap(rs));
+						}
+					}finally{
+						rs.close();
+					}
+					results.add(list);
+				}
+				isResultSet = cs.getMoreResults();
+			}
+			
+			if(PROC_OUT.equals(procedure) || PROC_INOUT.equals(procedure))
+				return cs.getInt(1);
+			else if(PROC_IN_OUT.equals(procedure))
+				return cs.getInt(2);
+			return results;
+		}finally{
+			if(cs != null) cs.close();
+			conn.close();
+		}
+	}
+
+	//statements are prepared again when the width changes, only the last one may be narrower
+	@Override
+	public int multiRowInsert(int rows, int width) throws Exception {
+		Connection conn = bds.getConnection();
+		PreparedStatement ps = null;
+		try {
+			conn.setAutoCommit(false);
+			int statements = 0, prepared = 0;
+			for (int i = 0; i < rows; i += width) {
+				int size = Math.min(width, rows - i);
+				if(size != prepared){
+					if(ps != null) ps.close();
+					ps = conn.prepareStatement(multiRowInsertSql(size));
+					prepared = size;
+				}
+				for (int j = 0; j < size; j++) {
+					setStudent(ps, j * INSERT_COLUMNS + 1, newStudent());
+				}
+				ps.executeUpdate();
+				statements++;
+			}
+			conn.commit();
+			return statements;
+		}catch(Exception e){
+			conn.rollback();
+			throw e;
+		}finally{
+			if(ps != null) ps.close();
+			conn.close();
+		}
+	}
+
 	@Override
 	public int[] batchInsert(int rows) throws Exception {
 		String sql = "INSERT INTO rexdb_test_student(STUDENT_ID, NAME, SEX, BIRTHDAY, BIRTH_TIME, ENROLLMENT_TIME, MAJOR, PHOTO, REMARK, READONLY) VALUES (?,?,?,?,?,?,?,?,?,?)";
@@ -225,6 +512,40 @@ public class JdbcDao extends Dao{
 	public int[] batchInsertPs(int rows) throws Exception {
 		return batchInsert(rows);
 	}
+	
+	@Override
+	public int bulkInsert(int rows, int batchSize, int commitInterval) throws Exception {
+		String sql = "INSERT INTO rexdb_test_student(STUDENT_ID, NAME, SEX, BIRTHDAY, BIRTH_TIME, ENROLLMENT_TIME, MAJOR, PHOTO, REMARK, READONLY) VALUES (?,?,?,?,?,?,?,?,?,?)";
+		Connection conn = bds.getConnection();
+		PreparedStatement ps = null;
+		try {
+			conn.setAutoCommit(false);
+			ps = conn.prepareStatement(sql);
+			
+			int inserted = 0;
+			while(inserted < rows){
+				int count = 0;
+				do{
+					int size = Math.min(batchSize, rows - inserted - count);
+					for (int i = 0; i < size; i++) {
+						setStudent(ps, 1, newStudent());
+						ps.addBatch();
+					}
+					ps.executeBatch();
+					count += size;
+				}while(inserted + count < rows && !isCommitPoint(count, commitInterval));
+				conn.commit();
+				inserted += count;
+			}
+			return inserted;
+		}catch(Exception e){
+			conn.rollback();
+			throw e;
+		}finally{
+			if(ps != null) ps.close();
+			conn.close();
+		}
+	}
 
 	@Override
 	public String getName() throws Exception {
@@ -0,0 +1,101 @@
+package org.rex.db.test.performance;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * Runs a main class in a separate JVM with the same classpath and JVM arguments.
+ * The forked JVM prints its result as a single JSON line after RESULT_PREFIX, other lines are echoed.
+ */
+public class JvmFork {
+	
+	public static final String RESULT_PREFIX = "#fork-result:";
+	
+	//milliseconds to wait for the forked JVM to exit after its output ends
+	static final long EXIT_TIMEOUT = 30000;
+	
+	/**
+	 * launches the JVM and waits for it, returns the JSON result
+	 */
+	public static String launch(Class<?> mainClass, String[] args) throws Exception{
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		
+		List<String> jvmArgs = ManagementFactory.getRuntimeMXBean().getInputArguments();
+		for (Iterator<String> iterator = jvmArgs.iterator(); iterator.hasNext();) {
+			String arg = iterator.next();
+			if(arg.startsWith("-agentlib:jdwp") || arg.startsWith("-Xrunjdwp"))
+				continue;
+			command.add(arg);
+		}
+		
+		command.add("-classpath");
+		command.add(System.getProperty("java.class.path"));
+		command.add(mainClass.getName());
+		for (int i = 0; i < args.length; i++) {
+			command.add(args[i]);
+		}
+		
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectErrorStream(true);
+		Process process = builder.start();
+		
+		String result = null;
+		BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()));
+		try{
+			String line = null;
+			while((line = in.readLine()) != null){
+				if(line.startsWith(RESULT_PREFIX)){
+					result = line.substring(RESULT_PREFIX.length());
+					break;
+				}
+				System.out.println("   > " + line);
+			}
+		}finally{
+			in.close();
+		}
+		
+		Integer exit = waitFor(process, EXIT_TIMEOUT);
+		if(exit == null){
+			process.destroy();
+			if(result == null)
+				throw new Exception("forked JVM of " + mainClass.getName() + " did not exit in " + EXIT_TIMEOUT / 1000 + " s, destroyed.");
+			System.out.println("-- forked JVM of " + mainClass.getName() + " did not exit in " + EXIT_TIMEOUT / 1000 + " s after its result, destroyed.");
+		}else if(exit.intValue() != 0)
+			throw new Exception("forked JVM of " + mainClass.getName() + " exited with code " + exit + ".");
+		if(result == null)
+			throw new Exception("forked JVM of " + mainClass.getName() + " did not print a result.");
+		
+		return result;
+	}
+	
+	/**
+	 * waits for the process to exit, returns null if it is still running after the timeout
+	 */
+	static Integer waitFor(Process process, long timeout) throws Exception{
+		long deadline = System.currentTimeMillis() + timeout;
+		while(true){
+			try{
+				return Integer.valueOf(process.exitValue());
+			}catch(IllegalThreadStateException e){
+				if(System.currentTimeMillis() > deadline)
+					return null;
+			}
+			Thread.sleep(100);
+		}
+	}
+	
+	/**
+	 * prints the result in the forked JVM
+	 */
+	public static void printResult(Object result){
+		System.out.println(RESULT_PREFIX + JSON.toJSONString(result));
+	}
+}
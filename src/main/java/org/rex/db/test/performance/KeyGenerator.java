@@ -0,0 +1,60 @@
+package org.rex.db.test.performance;
+
+import java.util.Random;
+
+/**
+ * Random keys of the rows seeded by a scenario, drawn from consecutive keys. Keys are uniform unless skewed,
+ * a skewed generator draws hotRatio of the keys from the first hotKeys of the range, e.g. 0.8 of the keys from 0.2 of the rows.
+ * Thread safe, every thread draws from its own random.
+ */
+public class KeyGenerator {
+
+	private final long first;
+	private final int count, hot;
+	private final double hotRatio;
+
+	private final ThreadLocal<Random> random = new ThreadLocal<Random>(){
+		protected Random initialValue() {
+			return new Random();
+		}
+	};
+
+	/**
+	 * uniform keys from first to first + count - 1
+	 */
+	public KeyGenerator(long first, int count){
+		this(first, count, 1, 0);
+	}
+
+	/**
+	 * skewed keys from first to first + count - 1, hotKeys and hotRatio are fractions between 0 and 1
+	 */
+	public KeyGenerator(long first, int count, double hotKeys, double hotRatio){
+		this.first = first;
+		this.count = Math.max(count, 1);
+		this.hot = Math.min(Math.max((int)(this.count * hotKeys), 1), this.count);
+		this.hotRatio = hot < this.count ? hotRatio : 0;
+	}
+
+	/**
+	 * a random key
+	 */
+	public long next(){
+		Random r = random.get();
+		if(hotRatio > 0){
+			if(r.nextDouble() < hotRatio)
+				return first + r.nextInt(hot);
+			else
+				return first + hot + r.nextInt(count - hot);
+		}
+		return first + r.nextInt(count);
+	}
+
+	public long getFirst() {
+		return first;
+	}
+
+	public int getCount() {
+		return count;
+	}
+}
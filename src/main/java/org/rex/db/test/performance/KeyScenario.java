@@ -0,0 +1,32 @@
+package org.rex.db.test.performance;
+
+import org.rex.db.test.Arguments;
+
+/**
+ * operates on rows picked by random keys, the keys are the ones of rows seeded by setUp.
+ * arguments: hotKeys=0.2 hotRatio=0, e.g. hotRatio=0.8 picks 80% of the keys from 20% of the rows, 0 picks keys uniformly
+ */
+public abstract class KeyScenario extends Scenario {
+
+	protected KeyGenerator keys;
+	
+	private double hotKeys = 0.2, hotRatio = 0;
+	
+	@Override
+	public void configure(Arguments args) {
+		hotKeys = args.getDouble("hotKeys", hotKeys);
+		hotRatio = args.getDouble("hotRatio", hotRatio);
+		if(hotKeys <= 0 || hotKeys > 1 || hotRatio < 0 || hotRatio > 1){
+			System.out.println("argument 'hotKeys' and 'hotRatio' must be fractions between 0 and 1.");
+			hotKeys = 0.2;
+			hotRatio = 0;
+		}
+	}
+
+	@Override
+	public void setUp(Dao dao, int tableRows) throws Exception {
+		long first = Dao.studentId;
+		super.setUp(dao, tableRows);
+		keys = new KeyGenerator(first, (int)(Dao.studentId - first), hotKeys, hotRatio);
+	}
+}
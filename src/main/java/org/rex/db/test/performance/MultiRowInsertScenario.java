@@ -0,0 +1,59 @@
+package org.rex.db.test.performance;
+
+import org.rex.db.exception.DBException;
+import org.rex.db.test.Arguments;
+
+/**
+ * inserts rows in a transaction with multi-row INSERT statements of width rows each, INSERT ALL on Oracle, to compare with
+ * batchInsert which sends single row statements in a JDBC batch. width is capped by the bind parameter limit of the dialect.
+ * arguments: width=100
+ */
+public class MultiRowInsertScenario extends Scenario {
+	
+	private int width = 100;
+
+	@Override
+	public String getName() {
+		return "multiRowInsert";
+	}
+
+	@Override
+	public int getRows() {
+		return 5000;
+	}
+	
+	@Override
+	public void configure(Arguments args) {
+		width = args.getInt("width", width);
+	}
+	
+	public void setWidth(int width) {
+		this.width = width;
+	}
+	
+	/**
+	 * rows of a statement, within the limit of the dialect
+	 */
+	public int getWidth() throws DBException {
+		return Math.min(width, Dao.getMaxInsertWidth());
+	}
+	
+	@Override
+	public void setUp(Dao dao, int tableRows) throws Exception {
+		if(width > Dao.getMaxInsertWidth()){
+			if(Dao.isOracle())
+				System.out.println("-- width " + width + " exceeds " + Dao.MAX_INSERT_ALL_COLUMNS + " columns of INSERT ALL of Oracle, capped to " + getWidth());
+			else
+				System.out.println("-- width " + width + " exceeds " + Dao.getMaxParameters() + " parameters of the dialect, capped to " + getWidth());
+		}
+		super.setUp(dao, tableRows);
+	}
+
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		long start = System.nanoTime();
+		int result = dao.multiRowInsert(rows, getWidth());
+		record(histogram, start);
+		return result;
+	}
+}
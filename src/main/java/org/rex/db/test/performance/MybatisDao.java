@@ -1,14 +1,33 @@
 package org.rex.db.test.performance;
 
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.derby.tools.sysinfo;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.rex.DB;
+import org.rex.db.dialect.LimitHandler;
+import org.rex.db.test.Student;
 
 public class MybatisDao extends Dao{
 	
@@ -21,14 +40,21 @@ public class MybatisDao extends Dao{
 	}
 
 	static SqlSession getSession(boolean isBatch) throws IOException{
+		return getSession(isBatch, true);
+	}
+	
+	static SqlSession getSession(boolean isBatch, boolean autoCommit) throws IOException{
 		if(sessionFactory == null){
-			sessionFactory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader(MYBATIS_CONFIG));
+			if(Embedded.isEnabled())
+				sessionFactory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader(MYBATIS_CONFIG), Embedded.getProperties());
+			else
+				sessionFactory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader(MYBATIS_CONFIG));
 		}
 		
 		if(isBatch)
-			return sessionFactory.openSession(ExecutorType.BATCH, true);
+			return sessionFactory.openSession(ExecutorType.BATCH, autoCommit);
 		else
-			return sessionFactory.openSession(true);
+			return sessionFactory.openSession(autoCommit);
 	}
 
 	
@@ -67,6 +93,56 @@ public class MybatisDao extends Dao{
 		return batchInsert(rows);
 	}
 	
+	//rows of a statement are expanded by foreach of the mapper
+	@Override
+	public int multiRowInsert(int rows, int width) throws Exception {
+		SqlSession session = getSession(false, false);
+		try{
+			int statements = 0;
+			for (int i = 0; i < rows; i += width) {
+				int size = Math.min(width, rows - i);
+				List<Student> students = new ArrayList<Student>(size);
+				for (int j = 0; j < size; j++) {
+					students.add(newStudent());
+				}
+				Map param = new HashMap();
+				param.put("students", students);
+				param.put("insertAll", isOracle());
+				session.insert("insertRows", param);
+				statements++;
+			}
+			session.commit();
+			return statements;
+		}finally{
+			session.close();
+		}
+	}
+	
+	//statements are flushed as a JDBC batch every batchSize rows
+	@Override
+	public int bulkInsert(int rows, int batchSize, int commitInterval) throws Exception {
+		SqlSession session = getSession(true, false);
+		try{
+			int inserted = 0;
+			while(inserted < rows){
+				int count = 0;
+				do{
+					int size = Math.min(batchSize, rows - inserted - count);
+					for (int i = 0; i < size; i++) {
+						session.insert("insert", newStudent());
+					}
+					session.flushStatements();
+					count += size;
+				}while(inserted + count < rows && !isCommitPoint(count, commitInterval));
+				session.commit();
+				inserted += count;
+			}
+			return inserted;
+		}finally{
+			session.close();
+		}
+	}
+	
 	@Override
 	public List getList() throws Exception{
 		SqlSession session = getSession();
@@ -88,6 +164,110 @@ public class MybatisDao extends Dao{
 		}
 	}
 	
+	@Override
+	public Object get(long studentId) throws Exception {
+		SqlSession session = getSession();
+		try{
+			return session.selectOne("get", studentId);
+		}finally{
+			session.close();
+		}
+	}
+	
+	@Override
+	public Map getMap(long studentId) throws Exception {
+		SqlSession session = getSession();
+		try{
+			return session.selectOne("getMap", studentId);
+		}finally{
+			session.close();
+		}
+	}
+	
+	//RowBounds skips rows on the client, mybatis does not rewrite sql for paging
+	@Override
+	public List getPage(int offset, int rows) throws Exception {
+		SqlSession session = getSession();
+		try{
+			return session.selectList("getPage", null, new RowBounds(offset, rows));
+		}finally{
+			session.close();
+		}
+	}
+	
+	@Override
+	public List getPageAfter(long studentId, int rows) throws Exception {
+		SqlSession session = getSession();
+		try{
+			Map<String, Object> params = new HashMap<String, Object>();
+			params.put("sql", limitSql(PAGE_AFTER_SQL, DB.getDialect().getLimitHandler(rows)));
+			params.put("studentId", studentId);
+			return session.selectList("getPageAfter", params);
+		}finally{
+			session.close();
+		}
+	}
+	
+	static final String PAGE_AFTER_SQL = "SELECT * FROM rexdb_test_student WHERE student_id > #{studentId} ORDER BY student_id";
+	
+	/**
+	 * paging sql of the dialect, the same as rexdb. limits are written into the sql, the parameters set by the limit handler
+	 * are recorded and replace its placeholders, which follow the parameters of the sql
+	 */
+	static String limitSql(String sql, LimitHandler limit) throws SQLException{
+		final Map<Integer, Object> values = new HashMap<Integer, Object>();
+		PreparedStatement recorder = (PreparedStatement)Proxy.newProxyInstance(MybatisDao.class.getClassLoader(), new Class[]{PreparedStatement.class}, 
+			new InvocationHandler(){
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					if(method.getName().startsWith("set") && args != null && args.length == 2 && args[0] instanceof Integer)
+						values.put((Integer)args[0], args[1]);
+					return null;
+				}
+			});
+		limit.afterSetParameters(recorder, 0);
+		
+		String wrapped = limit.wrapSql(sql);
+		StringBuffer sb = new StringBuffer();
+		int index = 0;
+		for (int i = 0; i < wrapped.length(); i++) {
+			char c = wrapped.charAt(i);
+			if(c == '?')
+				sb.append(values.get(++index));
+			else
+				sb.append(c);
+		}
+		return sb.toString();
+	}
+	
+	@Override
+	public long stream(int fetchSize) throws Exception {
+		SqlSession session = getSession(false, false);
+		try{
+			final long[] rows = new long[1];
+			session.select(streamStatement(fetchSize), new ResultHandler(){
+				public void handleResult(ResultContext context) {
+					rows[0]++;
+				}
+			});
+			session.commit(true);
+			return rows[0];
+		}finally{
+			session.close();
+		}
+	}
+	
+	//getList with the fetch size, which is fixed for a mapped statement
+	static synchronized String streamStatement(int fetchSize) throws IOException{
+		Configuration configuration = sessionFactory.getConfiguration();
+		String id = "stream" + fetchSize;
+		if(!configuration.hasStatement(id)){
+			MappedStatement getList = configuration.getMappedStatement("getList");
+			configuration.addMappedStatement(new MappedStatement.Builder(configuration, id, getList.getSqlSource(), SqlCommandType.SELECT)
+				.resultMaps(getList.getResultMaps()).resultSetType(ResultSetType.FORWARD_ONLY).fetchSize(fetchSize).build());
+		}
+		return id;
+	}
+	
 	@Override
 	public int delete() throws Exception {
 		SqlSession session = getSession();
@@ -98,6 +278,93 @@ public class MybatisDao extends Dao{
 		}
 	}
 	
+	@Override
+	public int delete(long studentId) throws Exception {
+		SqlSession session = getSession();
+		try{
+			return session.delete("deleteByKey", studentId);
+		}finally{
+			session.close();
+		}
+	}
+	
+	@Override
+	public int update(long studentId) throws Exception {
+		SqlSession session = getSession();
+		try{
+			return session.update("update", updated(studentId));
+		}finally{
+			session.close();
+		}
+	}
+	
+	@Override
+	public int[] batchUpdate(long[] studentIds) throws Exception {
+		SqlSession session = getSession(true, false);
+		try{
+			for (int i = 0; i < studentIds.length; i++) {
+				session.update("update", updated(studentIds[i]));
+			}
+			session.flushStatements();
+			session.commit();
+		}finally{
+			session.close();
+		}
+		return new int[]{studentIds.length};
+	}
+	
+	@Override
+	public int transaction(long[] studentIds, int isolation, boolean rollback) throws Exception {
+		SqlSession session = getSession(false, false);
+		Connection conn = session.getConnection();
+		int previous = isolation == ISOLATION_DEFAULT ? ISOLATION_DEFAULT : conn.getTransactionIsolation();
+		try{
+			if(isolation != ISOLATION_DEFAULT)
+				conn.setTransactionIsolation(isolation);
+			
+			int rows = 0;
+			for (int i = 0; i < studentIds.length; i++) {
+				rows += session.update("update", updated(studentIds[i]));
+			}
+			
+			if(rollback)
+				session.rollback(true);
+			else
+				session.commit(true);
+			return rows;
+		}finally{
+			//pooled connections keep the isolation level, uncommitted changes are rolled back by close
+			if(previous != ISOLATION_DEFAULT) conn.setTransactionIsolation(previous);
+			session.close();
+		}
+	}
+	
+	@Override
+	public Object call(String procedure, long studentId) throws Exception {
+		Map param = new HashMap();
+		param.put("studentId", studentId);
+		param.put("count", INOUT_VALUE);
+		
+		SqlSession session = getSession();
+		try{
+			List results = session.selectList("call_" + procedure, param);
+			if(PROC_IN.equals(procedure) || PROC_RETURN.equals(procedure) || PROC_RETURN_RS.equals(procedure))
+				return results;
+			return param;
+		}finally{
+			session.close();
+		}
+	}
+	
+	//parameter of updates
+	static Student updated(long studentId){
+		Student student = new Student();
+		student.setStudentId(studentId);
+		student.setName(UPDATED_NAME);
+		student.setMajor(nextMajor());
+		return student;
+	}
+	
 	@Override
 	public String getName() throws Exception {
 		return "mybatis";
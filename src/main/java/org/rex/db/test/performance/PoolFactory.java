@@ -0,0 +1,72 @@
+package org.rex.db.test.performance;
+
+import java.lang.reflect.Field;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.rex.db.datasource.SimpleDataSource;
+import org.rex.db.datasource.pool.SimpleConnectionPool;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Data sources of the pool comparison, connecting to the database of conn.properties or the embedded database.
+ * dbcp is commons-dbcp BasicDataSource, rexdb is SimpleDataSource of rexdb which is backed by SimpleConnectionPool,
+ * unpooled opens a new connection from DriverManager every time.
+ */
+public class PoolFactory {
+
+	public static final String DBCP = "dbcp", REXDB = "rexdb", UNPOOLED = "unpooled";
+
+	public static final String[] POOLS = new String[]{DBCP, REXDB, UNPOOLED};
+
+	/**
+	 * creates a data source, maxIdle is the minimum pool size of rexdb which keeps that many idle connections.
+	 * timeout is the maximum wait for a connection in milliseconds.
+	 */
+	public static DataSource create(String pool, int maxActive, int maxIdle, int timeout) throws Exception{
+		Properties conn = Dao.loadConnProperties("conn.properties");
+
+		if(DBCP.equals(pool)){
+			BasicDataSource bds = new BasicDataSource();
+			bds.setDriverClassName(conn.getProperty("driverClassName"));
+			bds.setUrl(conn.getProperty("url"));
+			bds.setUsername(conn.getProperty("username"));
+			bds.setPassword(conn.getProperty("password"));
+			bds.setMaxActive(maxActive);
+			bds.setMaxIdle(maxIdle);
+			bds.setMaxWait(timeout);
+			return bds;
+		}else if(REXDB.equals(pool)){
+			Properties props = new Properties();
+			props.putAll(conn);
+			props.put("initSize", String.valueOf(Math.min(maxIdle, maxActive)));
+			props.put("minSize", String.valueOf(Math.min(maxIdle, maxActive)));
+			props.put("maxSize", String.valueOf(maxActive));
+			props.put("getConnectionTimeout", String.valueOf(timeout));
+			return new SimpleDataSource(props);
+		}else if(UNPOOLED.equals(pool)){
+			Class.forName(conn.getProperty("driverClassName"));
+			return new DriverManagerDataSource(conn.getProperty("url"), conn.getProperty("username"), conn.getProperty("password"));
+		}else
+			throw new Exception("pool '"+pool+"' not exist.");
+	}
+
+	public static boolean isPooled(String pool){
+		return !UNPOOLED.equals(pool);
+	}
+
+	/**
+	 * closes idle connections of a data source
+	 */
+	public static void close(DataSource dataSource) throws Exception{
+		if(dataSource instanceof BasicDataSource){
+			((BasicDataSource)dataSource).close();
+		}else if(dataSource instanceof SimpleDataSource){
+			Field field = SimpleDataSource.class.getDeclaredField("pool");
+			field.setAccessible(true);
+			((SimpleConnectionPool)field.get(dataSource)).closeInactiveConnections();
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package org.rex.db.test.performance;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.rex.DB;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.parser.Feature;
+
+/**
+ * Results of test runs saved as JSON files in a directory, one file per run.
+ * Every run is keyed by git revision, database dialect, JVM version and test configuration,
+ * and keeps the throughput of every iteration for comparisons.
+ */
+public class ResultStore {
+
+	public static final String LATEST = "latest";
+
+	private File dir;
+
+	public ResultStore(String dir){
+		this.dir = new File(dir);
+	}
+
+	/**
+	 * saves a run, returns its id
+	 */
+	public String save(String[] frameworks, String config, Map<String, double[]> results, Map<String, double[][]> throughputs) throws Exception{
+		Date now = new Date();
+		String revision = getRevision();
+		String id = new SimpleDateFormat("yyyyMMdd-HHmmss").format(now) + "-" + revision;
+
+		Map<String, Object> key = new LinkedHashMap<String, Object>();
+		key.put("revision", revision);
+		key.put("dialect", getDialect());
+		key.put("java", System.getProperty("java.version") + " " + System.getProperty("java.vm.name"));
+		key.put("config", config);
+
+		Map<String, Object> run = new LinkedHashMap<String, Object>();
+		run.put("id", id);
+		run.put("time", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(now));
+		run.put("key", key);
+		run.put("results", byFramework(frameworks, results));
+		run.put("samples", byFramework(frameworks, throughputs));
+
+		dir.mkdirs();
+		Writer out = new OutputStreamWriter(new FileOutputStream(new File(dir, id + ".json")), "UTF-8");
+		try{
+			out.write(JSON.toJSONString(run, true));
+		}finally{
+			out.close();
+		}
+		return id;
+	}
+
+	/**
+	 * ids of all runs, oldest first
+	 */
+	public String[] list(){
+		String[] names = dir.list();
+		if(names == null) return new String[0];
+
+		int count = 0;
+		String[] ids = new String[names.length];
+		for (int i = 0; i < names.length; i++) {
+			if(names[i].endsWith(".json"))
+				ids[count++] = names[i].substring(0, names[i].length() - 5);
+		}
+		ids = Arrays.copyOf(ids, count);
+		Arrays.sort(ids);
+		return ids;
+	}
+
+	/**
+	 * loads a run by id, 'latest', or 'latest-N' for the Nth run before the latest
+	 */
+	public JSONObject load(String id) throws Exception{
+		if(id.startsWith(LATEST)){
+			String[] ids = list();
+			int back = id.length() > LATEST.length() ? Integer.parseInt(id.substring(LATEST.length() + 1)) : 0;
+			if(back >= ids.length)
+				throw new Exception("only " + ids.length + " runs in " + dir.getPath() + ", could not find '" + id + "'.");
+			id = ids[ids.length - 1 - back];
+		}
+
+		File file = new File(dir, id + ".json");
+		if(!file.exists())
+			throw new Exception("run '" + id + "' not found in " + dir.getPath() + ".");
+
+		StringBuffer sb = new StringBuffer();
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try{
+			String line = null;
+			while((line = in.readLine()) != null){
+				sb.append(line).append('\n');
+			}
+		}finally{
+			in.close();
+		}
+		return JSON.parseObject(sb.toString(), Feature.OrderedField);
+	}
+
+	//test -> framework -> value
+	static Map<String, Map<String, Object>> byFramework(String[] names, Map<String, ?> values){
+		Map<String, Map<String, Object>> datas = new LinkedHashMap<String, Map<String, Object>>();
+		for (Iterator<? extends Map.Entry<String, ?>> iterator = values.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, ?> entry = iterator.next();
+			Object value = entry.getValue();
+
+			Map<String, Object> frameworks = new LinkedHashMap<String, Object>();
+			int length = value instanceof double[] ? ((double[])value).length : ((double[][])value).length;
+			for (int i = 0; i < length; i++) {
+				frameworks.put(names[i], value instanceof double[] ? ((double[])value)[i] : ((double[][])value)[i]);
+			}
+			datas.put(entry.getKey(), frameworks);
+		}
+		return datas;
+	}
+
+	//----------key of runs
+	/**
+	 * short git revision of the working directory, marked dirty if tracked files are modified
+	 */
+	public static String getRevision(){
+		String revision = git("rev-parse", "--short", "HEAD");
+		if(revision == null || revision.length() == 0) return "unknown";
+
+		String status = git("status", "--porcelain", "--untracked-files=no");
+		return status != null && status.length() > 0 ? revision + "-dirty" : revision;
+	}
+
+	/**
+	 * database dialect of rexdb
+	 */
+	public static String getDialect(){
+		try{
+			return DB.getDialect().getName();
+		}catch(Throwable e){
+			return "unknown";
+		}
+	}
+
+	static String git(String... args){
+		String[] command = new String[args.length + 1];
+		command[0] = "git";
+		System.arraycopy(args, 0, command, 1, args.length);
+		try{
+			Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+			StringBuffer sb = new StringBuffer();
+			BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()));
+			try{
+				String line = null;
+				while((line = in.readLine()) != null){
+					sb.append(line);
+				}
+			}finally{
+				in.close();
+			}
+			return process.waitFor() == 0 ? sb.toString().trim() : null;
+		}catch(Exception e){
+			return null;
+		}
+	}
+}
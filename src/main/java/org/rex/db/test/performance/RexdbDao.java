@@ -1,12 +1,32 @@
 package org.rex.db.test.performance;
 
+import java.sql.ResultSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.rex.DB;
 import org.rex.db.Ps;
+import org.rex.db.configuration.Configuration;
+import org.rex.db.core.DBTemplate;
+import org.rex.db.core.reader.ClassResultReader;
+import org.rex.db.exception.DBException;
 import org.rex.db.test.Student;
+import org.rex.db.transaction.DefaultDefinition;
 
 public class RexdbDao extends Dao {
+	
+	//--parameters of the key in point lookups
+	public static final String PARAMETER_PS = "ps", PARAMETER_ARRAY = "array", PARAMETER_BEAN = "bean", PARAMETER_MAP = "map";
+	
+	static volatile String keyParameter = PARAMETER_PS;
+	
+	/**
+	 * sets how the key of point lookups is bound: Ps, object array, bean or map
+	 */
+	public static void setKeyParameter(String parameter){
+		keyParameter = parameter;
+	}
 
 	@Override
 	public int insert() throws Exception {
@@ -39,6 +59,56 @@ public class RexdbDao extends Dao {
 		}
 	}
 	
+	@Override
+	public int bulkInsert(int rows, int batchSize, int commitInterval) throws Exception {
+		String sql = "INSERT INTO rexdb_test_student(student_id, name, sex, birthday, birth_time, enrollment_time, major, photo, remark, readonly)"
+				+ " VALUES (#{studentId},#{name},#{sex},#{birthday},#{birthTime},#{enrollmentTime},#{major},#{photo},#{remark},#{readonly})";
+		
+		int inserted = 0;
+		while(inserted < rows){
+			int count = 0;
+			DB.beginTransaction();
+			try{
+				do{
+					Student[] students = new Student[Math.min(batchSize, rows - inserted - count)];
+					for (int i = 0; i < students.length; i++) {
+						students[i] = super.newStudent();
+					}
+					DB.batchUpdate(sql, students);
+					count += students.length;
+				}while(inserted + count < rows && !isCommitPoint(count, commitInterval));
+			}catch(Exception e){
+				DB.rollback();
+				throw e;
+			}
+			DB.commit();
+			inserted += count;
+		}
+		return inserted;
+	}
+	
+	@Override
+	public int multiRowInsert(int rows, int width) throws Exception {
+		int statements = 0;
+		DB.beginTransaction();
+		try{
+			for (int i = 0; i < rows; i += width) {
+				int size = Math.min(width, rows - i);
+				Ps ps = new Ps();
+				for (int j = 0; j < size; j++) {
+					addStudent(ps);
+				}
+				DB.update(multiRowInsertSql(size), ps);
+				statements++;
+			}
+		}catch(Exception e){
+			DB.rollback();
+			throw e;
+		}
+		DB.commit();
+		return statements;
+	}
+	
 	@Override
 	public int[] batchInsertPs(int rows) throws Exception {
 		String sql = "INSERT INTO rexdb_test_student(STUDENT_ID, NAME, SEX, BIRTHDAY, BIRTH_TIME, ENROLLMENT_TIME, MAJOR, PHOTO, REMARK, READONLY) VALUES (?,?,?,?,?,?,?,?,?,?)";
@@ -55,6 +125,59 @@ public class RexdbDao extends Dao {
 		return list;
 	}
 
+	@Override
+	public Object get(long studentId) throws Exception {
+		if(PARAMETER_ARRAY.equals(keyParameter))
+			return DB.get("SELECT * FROM rexdb_test_student WHERE student_id = ?", new Object[]{studentId}, Student.class);
+		else if(PARAMETER_BEAN.equals(keyParameter)){
+			Student student = new Student();
+			student.setStudentId(studentId);
+			return DB.get("SELECT * FROM rexdb_test_student WHERE student_id = #{studentId}", student, Student.class);
+		}else if(PARAMETER_MAP.equals(keyParameter)){
+			Map<String, Object> key = new HashMap<String, Object>();
+			key.put("studentId", studentId);
+			return DB.get("SELECT * FROM rexdb_test_student WHERE student_id = #{studentId}", key, Student.class);
+		}else
+			return DB.get("SELECT * FROM rexdb_test_student WHERE student_id = ?", new Ps(studentId), Student.class);
+	}
+	
+	@Override
+	public Map getMap(long studentId) throws Exception {
+		return DB.getMap("SELECT * FROM rexdb_test_student WHERE student_id = ?", new Ps(studentId));
+	}
+
+	@Override
+	public List getPage(int offset, int rows) throws Exception {
+		return DB.getList("SELECT * FROM rexdb_test_student ORDER BY student_id", Student.class, offset, rows);
+	}
+	
+	@Override
+	public List getPageAfter(long studentId, int rows) throws Exception {
+		return DB.getList("SELECT * FROM rexdb_test_student WHERE student_id > ? ORDER BY student_id", new Ps(studentId), Student.class, 0, rows);
+	}
+	
+	@Override
+	public long stream(int fetchSize) throws Exception {
+		//DBTemplate reads rows one by one into the reader, beans are dropped once mapped. rexdb does not set fetch size
+		final long[] rows = new long[1];
+		ClassResultReader<Student> reader = new ClassResultReader<Student>(Student.class){
+			public void processRow(ResultSet rs) throws DBException {
+				super.processRow(rs);
+				getResults().clear();
+				rows[0]++;
+			}
+		};
+		
+		DB.beginTransaction();
+		try{
+			new DBTemplate(Configuration.getCurrentConfiguration().getDataSourceManager().getDefault())
+				.query("SELECT * FROM rexdb_test_student", reader);
+		}finally{
+			DB.commit();
+		}
+		return rows[0];
+	}
+	
 	@Override
 	public List getMapList() throws Exception {
 		return DB.getMapList("SELECT * FROM rexdb_test_student");
@@ -66,6 +189,69 @@ public class RexdbDao extends Dao {
 		return DB.update("DELETE FROM rexdb_test_student");
 	}
 	
+	@Override
+	public int delete(long studentId) throws Exception {
+		return DB.update("DELETE FROM rexdb_test_student WHERE student_id = ?", new Ps(studentId));
+	}
+	
+	@Override
+	public int update(long studentId) throws Exception {
+		return DB.update("UPDATE rexdb_test_student SET name = ?, major = ? WHERE student_id = ?", new Ps(UPDATED_NAME, nextMajor(), studentId));
+	}
+	
+	@Override
+	public int[] batchUpdate(long[] studentIds) throws Exception {
+		Ps[] pss = new Ps[studentIds.length];
+		for (int i = 0; i < studentIds.length; i++) {
+			pss[i] = new Ps(UPDATED_NAME, nextMajor(), studentIds[i]);
+		}
+		try{
+			DB.beginTransaction();
+			return DB.batchUpdate("UPDATE rexdb_test_student SET name = ?, major = ? WHERE student_id = ?", pss);
+		}finally{
+			DB.commit();
+		}
+	}
+	
+	@Override
+	public int transaction(long[] studentIds, int isolation, boolean rollback) throws Exception {
+		DefaultDefinition definition = new DefaultDefinition();
+		if(isolation != ISOLATION_DEFAULT)
+			definition.setIsolationLevel(isolation);
+		
+		int rows = 0;
+		DB.beginTransaction(definition);
+		try{
+			for (int i = 0; i < studentIds.length; i++) {
+				rows += DB.update("UPDATE rexdb_test_student SET name = ?, major = ? WHERE student_id = ?", new Ps(UPDATED_NAME, nextMajor(), studentIds[i]));
+			}
+		}catch(Exception e){
+			DB.rollback();
+			throw e;
+		}
+		
+		if(rollback)
+			DB.rollback();
+		else
+			DB.commit();
+		return rows;
+	}
+	
+	@Override
+	public Object call(String procedure, long studentId) throws Exception {
+		Ps ps = new Ps();
+		if(PROC_IN.equals(procedure))
+			ps.add(studentId);
+		else if(PROC_OUT.equals(procedure))
+			ps.addOutInt("count");
+		else if(PROC_IN_OUT.equals(procedure)){
+			ps.add(studentId);
+			ps.addOutInt("major");
+		}else if(PROC_INOUT.equals(procedure))
+			ps.addInOut("count", INOUT_VALUE);
+		return DB.call(callSql(procedure), ps);
+	}
+	
 	@Override
 	public String getName() throws Exception {
 		return "rexdb";
@@ -0,0 +1,142 @@
+package org.rex.db.test.performance;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import org.rex.db.test.Arguments;
+
+/**
+ * A named workload of the performance tests, runs against any Dao.
+ * Scenarios are discovered with ServiceLoader, add the class name to META-INF/services/org.rex.db.test.performance.Scenario
+ * in a jar or directory of the classpath to run your own workloads. Row counts are the ones at speed 1, runners divide them by speed.
+ */
+public abstract class Scenario {
+	
+	private static Map<String, Scenario> scenarios;
+	
+	/**
+	 * name to select the scenario from command line
+	 */
+	public abstract String getName();
+	
+	/**
+	 * rows of an operation, e.g. rows of a batch, throughput is counted by rows
+	 */
+	public abstract int getRows();
+	
+	/**
+	 * rows of an operation are divided by speed, unless they are a setting of the test, e.g. statements of a transaction
+	 */
+	public boolean isScaled(){
+		return true;
+	}
+	
+	/**
+	 * rows in the table while measuring
+	 */
+	public int getTableRows(){
+		return 0;
+	}
+	
+	/**
+	 * scenarios not changing the table can be repeated without setting up again
+	 */
+	public boolean isReadOnly(){
+		return false;
+	}
+	
+	/**
+	 * operation runs one call per row, e.g. single row inserts
+	 */
+	public boolean isRowByRow(){
+		return false;
+	}
+	
+	/**
+	 * scenarios which need more than the tables of every sql script, e.g. stored procedures, run only when selected by name
+	 */
+	public boolean isDefault(){
+		return true;
+	}
+	
+	/**
+	 * reads settings of the scenario from command line arguments
+	 */
+	public void configure(Arguments args){
+	}
+	
+	/**
+	 * prepares the empty table before warming up
+	 */
+	public void setUp(Dao dao, int tableRows) throws Exception{
+		if(tableRows > 0)
+			dao.batchInsert(tableRows);
+	}
+	
+	/**
+	 * called before every operation outside of the measurement, e.g. to seed rows the operation consumes
+	 */
+	public void prepare(Dao dao, int rows) throws Exception{
+	}
+	
+	/**
+	 * runs the operation, latency of every call is recorded if the histogram is not null. returns result of the last call
+	 */
+	public abstract Object execute(Dao dao, int rows, Histogram histogram) throws Exception;
+	
+	/**
+	 * called after the scenario, before rows are deleted
+	 */
+	public void tearDown(Dao dao) throws Exception{
+	}
+	
+	protected static void record(Histogram histogram, long start){
+		if(histogram != null)
+			histogram.record(System.nanoTime() - start);
+	}
+	
+	//--------------registry
+	/**
+	 * all scenarios on the classpath, by name
+	 */
+	public static synchronized Map<String, Scenario> getScenarios(){
+		if(scenarios == null){
+			scenarios = new LinkedHashMap<String, Scenario>();
+			for (Iterator<Scenario> iterator = ServiceLoader.load(Scenario.class).iterator(); iterator.hasNext();) {
+				Scenario scenario = iterator.next();
+				scenarios.put(scenario.getName(), scenario);
+			}
+		}
+		return scenarios;
+	}
+	
+	/**
+	 * names of all scenarios
+	 */
+	public static String[] getNames(){
+		return getScenarios().keySet().toArray(new String[0]);
+	}
+	
+	/**
+	 * names of the scenarios to run when none is selected
+	 */
+	public static String[] getDefaultNames(){
+		List<String> names = new ArrayList<String>();
+		for (Iterator<Scenario> iterator = getScenarios().values().iterator(); iterator.hasNext();) {
+			Scenario scenario = iterator.next();
+			if(scenario.isDefault()) names.add(scenario.getName());
+		}
+		return names.toArray(new String[0]);
+	}
+	
+	public static Scenario get(String name) throws Exception{
+		Scenario scenario = getScenarios().get(name);
+		if(scenario == null)
+			throw new Exception("scenario '"+name+"' not exist, available: " + getScenarios().keySet() + ".");
+		return scenario;
+	}
+}
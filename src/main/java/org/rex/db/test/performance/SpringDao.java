@@ -2,16 +2,32 @@ package org.rex.db.test.performance;
 
 import java.sql.Blob;
 import java.sql.Clob;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.commons.dbcp.BasicDataSource;
+import org.rex.DB;
+import org.rex.db.dialect.LimitHandler;
 import org.rex.db.test.Student;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.jdbc.core.SqlInOutParameter;
+import org.springframework.jdbc.core.SqlOutParameter;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.SqlReturnResultSet;
+import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallback;
@@ -22,6 +38,11 @@ public class SpringDao extends Dao{
 	//--spring context
 	private static ApplicationContext ctx  = new ClassPathXmlApplicationContext("applicationContext.xml");
 	
+	static{
+		if(Embedded.isEnabled())
+			Embedded.configure((BasicDataSource)ctx.getBean("dataSource"));
+	}
+	
 	public static SpringDao getDao(){
 		return (SpringDao)ctx.getBean("studentDao");
 	}
@@ -109,10 +130,156 @@ public class SpringDao extends Dao{
 	public List getMapList() throws Exception {
 		return template.queryForList("SELECT * FROM rexdb_test_student");
 	}
+	
+	@Override
+	public Object get(long studentId) throws Exception {
+		//null if not found, the same as other frameworks
+		try{
+			return template.queryForObject("SELECT * FROM rexdb_test_student WHERE student_id = ?", new Object[]{studentId}, new StudentsRowMapper());
+		}catch(EmptyResultDataAccessException e){
+			return null;
+		}
+	}
+	
+	@Override
+	public Map getMap(long studentId) throws Exception {
+		try{
+			return template.queryForMap("SELECT * FROM rexdb_test_student WHERE student_id = ?", studentId);
+		}catch(EmptyResultDataAccessException e){
+			return null;
+		}
+	}
+	
+	@Override
+	public List getPage(int offset, int rows) throws Exception {
+		return getPage("SELECT * FROM rexdb_test_student ORDER BY student_id", null, DB.getDialect().getLimitHandler(offset, rows));
+	}
+	
+	@Override
+	public List getPageAfter(long studentId, int rows) throws Exception {
+		return getPage("SELECT * FROM rexdb_test_student WHERE student_id > ? ORDER BY student_id", studentId, DB.getDialect().getLimitHandler(rows));
+	}
+	
+	//paging sql of the dialect, the same as rexdb
+	List getPage(String sql, final Long studentId, final LimitHandler limit) throws Exception {
+		return template.query(limit.wrapSql(sql), new PreparedStatementSetter(){
+			public void setValues(PreparedStatement ps) throws SQLException {
+				if(studentId != null)
+					ps.setLong(1, studentId);
+				limit.afterSetParameters(ps, studentId == null ? 0 : 1);
+			}
+		}, new StudentsRowMapper());
+	}
+	
+	@Override
+	public long stream(int fetchSize) throws Exception {
+		final JdbcTemplate streaming = new JdbcTemplate(template.getDataSource());
+		streaming.setFetchSize(fetchSize);
+		final StudentsRowMapper mapper = new StudentsRowMapper();
+		
+		//in a transaction, some drivers only use a cursor when auto commit is off
+		TransactionTemplate transactionTemplate = new TransactionTemplate(getTransactionManager());
+		return transactionTemplate.execute(new TransactionCallback<Long>(){
+
+			@Override
+			public Long doInTransaction(TransactionStatus status) {
+				final long[] rows = new long[1];
+				streaming.query("SELECT * FROM rexdb_test_student", new RowCallbackHandler(){
+					public void processRow(ResultSet rs) throws SQLException {
+						mapper.mapRow(rs, (int)rows[0]++);
+					}
+				});
+				return rows[0];
+			}
+		});
+	}
 
 	public int delete() throws Exception {
 		return template.update("DELETE FROM rexdb_test_student");
 	}
+	
+	@Override
+	public int delete(long studentId) throws Exception {
+		return template.update("DELETE FROM rexdb_test_student WHERE student_id = ?", studentId);
+	}
+	
+	@Override
+	public int update(long studentId) throws Exception {
+		return template.update("UPDATE rexdb_test_student SET name = ?, major = ? WHERE student_id = ?", UPDATED_NAME, nextMajor(), studentId);
+	}
+	
+	@Override
+	public int transaction(final long[] studentIds, int isolation, final boolean rollback) throws Exception {
+		//ISOLATION_DEFAULT of spring is -1 as well
+		TransactionTemplate transactionTemplate = new TransactionTemplate(getTransactionManager());
+		transactionTemplate.setIsolationLevel(isolation);
+		return transactionTemplate.execute(new TransactionCallback<Integer>(){
+
+			@Override
+			public Integer doInTransaction(TransactionStatus status) {
+				int rows = 0;
+				for (int i = 0; i < studentIds.length; i++) {
+					rows += template.update("UPDATE rexdb_test_student SET name = ?, major = ? WHERE student_id = ?", UPDATED_NAME, nextMajor(), studentIds[i]);
+				}
+				if(rollback)
+					status.setRollbackOnly();
+				return rows;
+			}
+		});
+	}
+	
+	//calls by procedure, a SimpleJdbcCall is thread safe once compiled
+	private final Map<String, SimpleJdbcCall> calls = new ConcurrentHashMap<String, SimpleJdbcCall>();
+	
+	SimpleJdbcCall getCall(String procedure){
+		SimpleJdbcCall call = calls.get(procedure);
+		if(call != null) return call;
+		
+		//parameters are declared, metadata of procedures differs between databases
+		call = new SimpleJdbcCall(template).withProcedureName("rexdb_test_proc_" + procedure).withoutProcedureColumnMetaDataAccess();
+		if(PROC_IN.equals(procedure))
+			call.declareParameters(new SqlParameter("id", Types.BIGINT), new SqlReturnResultSet("students", new StudentsRowMapper()));
+		else if(PROC_OUT.equals(procedure))
+			call.declareParameters(new SqlOutParameter("s", Types.INTEGER));
+		else if(PROC_IN_OUT.equals(procedure))
+			call.declareParameters(new SqlParameter("id", Types.BIGINT), new SqlOutParameter("m", Types.INTEGER));
+		else if(PROC_INOUT.equals(procedure))
+			call.declareParameters(new SqlInOutParameter("c", Types.INTEGER));
+		else if(PROC_RETURN.equals(procedure))
+			call.declareParameters(new SqlReturnResultSet("c", new SingleColumnRowMapper<Integer>(Integer.class)));
+		else
+			call.declareParameters(new SqlReturnResultSet("students1", new StudentsRowMapper()), new SqlReturnResultSet("students2", new StudentsRowMapper()));
+		call.compile();
+		
+		calls.put(procedure, call);
+		return call;
+	}
+	
+	@Override
+	public Object call(String procedure, long studentId) throws Exception {
+		if(PROC_IN.equals(procedure) || PROC_IN_OUT.equals(procedure))
+			return getCall(procedure).execute(studentId);
+		else if(PROC_INOUT.equals(procedure))
+			return getCall(procedure).execute(INOUT_VALUE);
+		else
+			return getCall(procedure).execute();
+	}
+	
+	@Override
+	public int[] batchUpdate(final long[] studentIds) throws Exception {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(getTransactionManager());
+		return transactionTemplate.execute(new TransactionCallback<int[]>(){
+
+			@Override
+			public int[] doInTransaction(TransactionStatus status) {
+				List<Object[]> values = new ArrayList<Object[]>();
+				for (int i = 0; i < studentIds.length; i++) {
+					values.add(new Object[]{UPDATED_NAME, nextMajor(), studentIds[i]});
+				}
+				return template.batchUpdate("UPDATE rexdb_test_student SET name = ?, major = ? WHERE student_id = ?", values);
+			}
+		});
+	}
 
 	public int[] batchInsert(final int rows) throws Exception {
 		
@@ -124,20 +291,7 @@ public class SpringDao extends Dao{
 				String sql = "INSERT INTO rexdb_test_student(STUDENT_ID, NAME, SEX, BIRTHDAY, BIRTH_TIME, ENROLLMENT_TIME, MAJOR, PHOTO, REMARK, READONLY) VALUES (?,?,?,?,?,?,?,?,?,?)";
 				List<Object[]> values = new ArrayList<Object[]>();
 				for (int i = 0; i < rows; i++) {
-					Student stu = newStudent();
-					Object[] v = new Object[]{
-						stu.getStudentId(),
-						stu.getName(),
-						stu.getSex(),
-						new java.sql.Timestamp(stu.getBirthday().getTime()),
-						new java.sql.Timestamp(stu.getBirthTime().getTime()),
-						new java.sql.Timestamp(stu.getEnrollmentTime().getTime()),
-						stu.getMajor(),
-						stu.getPhoto(),
-						stu.getRemark(),
-						stu.getReadonly()
-					};
-					values.add(v);
+					values.add(insertValues(newStudent()));
 				}
 				return template.batchUpdate(sql, values);
 			}
@@ -146,6 +300,56 @@ public class SpringDao extends Dao{
 		
 	}
 	
+	@Override
+	public int multiRowInsert(final int rows, final int width) throws Exception {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(getTransactionManager());
+		return transactionTemplate.execute(new TransactionCallback<Integer>(){
+
+			@Override
+			public Integer doInTransaction(TransactionStatus status) {
+				int statements = 0;
+				for (int i = 0; i < rows; i += width) {
+					int size = Math.min(width, rows - i);
+					Object[] values = new Object[size * INSERT_COLUMNS];
+					for (int j = 0; j < size; j++) {
+						System.arraycopy(insertValues(newStudent()), 0, values, j * INSERT_COLUMNS, INSERT_COLUMNS);
+					}
+					template.update(multiRowInsertSql(size), values);
+					statements++;
+				}
+				return statements;
+			}
+		});
+	}
+	
+	@Override
+	public int bulkInsert(final int rows, final int batchSize, final int commitInterval) throws Exception {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(getTransactionManager());
+		int inserted = 0;
+		while(inserted < rows){
+			final int start = inserted;
+			inserted += transactionTemplate.execute(new TransactionCallback<Integer>(){
+
+				@Override
+				public Integer doInTransaction(TransactionStatus status) {
+					String sql = "INSERT INTO rexdb_test_student(STUDENT_ID, NAME, SEX, BIRTHDAY, BIRTH_TIME, ENROLLMENT_TIME, MAJOR, PHOTO, REMARK, READONLY) VALUES (?,?,?,?,?,?,?,?,?,?)";
+					int count = 0;
+					do{
+						int size = Math.min(batchSize, rows - start - count);
+						List<Object[]> values = new ArrayList<Object[]>(size);
+						for (int i = 0; i < size; i++) {
+							values.add(insertValues(newStudent()));
+						}
+						template.batchUpdate(sql, values);
+						count += size;
+					}while(start + count < rows && !isCommitPoint(count, commitInterval));
+					return count;
+				}
+			});
+		}
+		return inserted;
+	}
+	
 	@Override
 	public int[] batchInsertPs(int rows) throws Exception {
 		return batchInsert(rows);
@@ -0,0 +1,174 @@
+package org.rex.db.test.performance;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of benchmark samples
+ */
+public class Statistics {
+
+	public static double mean(double[] values){
+		if(values.length == 0) return 0;
+
+		double sum = 0;
+		for (int i = 0; i < values.length; i++) {
+			sum += values[i];
+		}
+		return sum / values.length;
+	}
+
+	/**
+	 * sample standard deviation
+	 */
+	public static double stddev(double[] values){
+		if(values.length < 2) return 0;
+
+		double mean = mean(values), sum = 0;
+		for (int i = 0; i < values.length; i++) {
+			sum += (values[i] - mean) * (values[i] - mean);
+		}
+		return Math.sqrt(sum / (values.length - 1));
+	}
+
+	/**
+	 * half width of the confidence interval of the mean, e.g. confidence = 0.999
+	 */
+	public static double confidenceInterval(double[] values, double confidence){
+		if(values.length < 2) return Double.NaN;
+
+		double t = tQuantile(1 - (1 - confidence) / 2, values.length - 1);
+		return t * stddev(values) / Math.sqrt(values.length);
+	}
+
+	/**
+	 * percentile of sorted values, linear interpolation between closest ranks
+	 */
+	public static double percentile(double[] sorted, double percentile){
+		if(sorted.length == 0) return 0;
+
+		double rank = percentile / 100 * (sorted.length - 1);
+		int low = (int)Math.floor(rank), high = (int)Math.ceil(rank);
+		return sorted[low] + (sorted[high] - sorted[low]) * (rank - low);
+	}
+
+	/**
+	 * discards values outside Tukey's fences, 1.5 interquartile ranges beyond the quartiles
+	 */
+	public static double[] removeOutliers(double[] values){
+		if(values.length < 4) return values;
+
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		double q1 = percentile(sorted, 25), q3 = percentile(sorted, 75), iqr = q3 - q1;
+		double low = q1 - 1.5 * iqr, high = q3 + 1.5 * iqr;
+
+		int count = 0;
+		double[] kept = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			if(values[i] >= low && values[i] <= high)
+				kept[count++] = values[i];
+		}
+		return Arrays.copyOf(kept, count);
+	}
+
+	/**
+	 * two-sided p-value of Welch's t-test, the means of both samples are equal under the null hypothesis
+	 */
+	public static double welchTest(double[] a, double[] b){
+		if(a.length < 2 || b.length < 2) return Double.NaN;
+
+		double va = stddev(a) * stddev(a) / a.length, vb = stddev(b) * stddev(b) / b.length;
+		if(va + vb == 0) return mean(a) == mean(b) ? 1 : 0;
+
+		double t = (mean(a) - mean(b)) / Math.sqrt(va + vb);
+		double df = (va + vb) * (va + vb) / (va * va / (a.length - 1) + vb * vb / (b.length - 1));
+		return 2 * (1 - tCdf(Math.abs(t), df));
+	}
+
+	//----------Student's t distribution
+	/**
+	 * cumulative probability of Student's t distribution
+	 */
+	public static double tCdf(double t, double df){
+		double x = df / (df + t * t);
+		double tail = 0.5 * incompleteBeta(x, df / 2, 0.5);
+		return t > 0 ? 1 - tail : tail;
+	}
+
+	/**
+	 * quantile of Student's t distribution, solved by bisection on the cumulative probability
+	 */
+	public static double tQuantile(double p, double df){
+		if(p == 0.5) return 0;
+		if(p < 0.5) return -tQuantile(1 - p, df);
+
+		double low = 0, high = 1;
+		while(tCdf(high, df) < p){
+			high *= 2;
+		}
+		for (int i = 0; i < 100; i++) {
+			double mid = (low + high) / 2;
+			if(tCdf(mid, df) < p)
+				low = mid;
+			else
+				high = mid;
+		}
+		return (low + high) / 2;
+	}
+
+	//regularized incomplete beta function
+	static double incompleteBeta(double x, double a, double b){
+		if(x <= 0) return 0;
+		if(x >= 1) return 1;
+
+		double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+		if(x < (a + 1) / (a + b + 2))
+			return front * betaFraction(x, a, b) / a;
+		else
+			return 1 - front * betaFraction(1 - x, b, a) / b;
+	}
+
+	//continued fraction of the incomplete beta function, modified Lentz's method
+	static double betaFraction(double x, double a, double b){
+		double tiny = 1e-300;
+		double c = 1, d = 1 - (a + b) * x / (a + 1);
+		if(Math.abs(d) < tiny) d = tiny;
+		d = 1 / d;
+		double h = d;
+
+		for (int m = 1; m <= 300; m++) {
+			int m2 = 2 * m;
+			double aa = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+			d = 1 + aa * d;
+			if(Math.abs(d) < tiny) d = tiny;
+			c = 1 + aa / c;
+			if(Math.abs(c) < tiny) c = tiny;
+			d = 1 / d;
+			h *= d * c;
+
+			aa = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+			d = 1 + aa * d;
+			if(Math.abs(d) < tiny) d = tiny;
+			c = 1 + aa / c;
+			if(Math.abs(c) < tiny) c = tiny;
+			d = 1 / d;
+			double delta = d * c;
+			h *= delta;
+			if(Math.abs(delta - 1) < 1e-15) break;
+		}
+		return h;
+	}
+
+	//Lanczos approximation
+	static double logGamma(double x){
+		double[] coefficients = new double[]{76.18009172947146, -86.50532032941677, 24.01409824083091,
+				-1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+		double y = x, tmp = x + 5.5;
+		tmp -= (x + 0.5) * Math.log(tmp);
+		double series = 1.000000000190015;
+		for (int i = 0; i < coefficients.length; i++) {
+			series += coefficients[i] / ++y;
+		}
+		return -tmp + Math.log(2.5066282746310005 * series / x);
+	}
+}
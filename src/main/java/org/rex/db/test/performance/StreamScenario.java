@@ -0,0 +1,64 @@
+package org.rex.db.test.performance;
+
+import org.rex.db.test.Arguments;
+
+/**
+ * reads all rows of a large table one by one through per row callbacks, without keeping them in a list.
+ * a long export-style scan, not run by default.
+ * arguments: streamRows=200000 fetchSize=1000, use fetchSize=-2147483648 to stream from MySQL
+ */
+public class StreamScenario extends Scenario {
+
+	static final int INSERT_BATCH = 10000;
+
+	private int tableRows = 200000, fetchSize = 1000;
+
+	@Override
+	public String getName() {
+		return "stream";
+	}
+
+	@Override
+	public int getRows() {
+		return tableRows;
+	}
+
+	@Override
+	public int getTableRows() {
+		return tableRows;
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public boolean isDefault() {
+		return false;
+	}
+
+	@Override
+	public void configure(Arguments args) {
+		tableRows = args.getInt("streamRows", tableRows);
+		fetchSize = args.getInt("fetchSize", fetchSize, Integer.MIN_VALUE);
+	}
+
+	//inserts in batches, a single batch of millions of rows does not fit in memory
+	@Override
+	public void setUp(Dao dao, int tableRows) throws Exception {
+		if(Dao.isMySql())
+			System.out.println("-- rexdb sets no fetch size, MySQL reads its whole result into memory, so peak live heap of rexdb is not comparable with streaming frameworks.");
+		for (int i = 0; i < tableRows; i += INSERT_BATCH) {
+			dao.batchInsert(Math.min(INSERT_BATCH, tableRows - i));
+		}
+	}
+
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		long start = System.nanoTime();
+		long result = dao.stream(fetchSize);
+		record(histogram, start);
+		return result;
+	}
+}
@@ -0,0 +1,104 @@
+package org.rex.db.test.performance;
+
+import java.sql.Connection;
+import java.util.Arrays;
+
+import org.rex.db.test.Arguments;
+
+/**
+ * updates rows by random primary keys in a transaction of the framework, e.g. DB.beginTransaction/commit of rexdb,
+ * TransactionTemplate of spring, Transaction of hibernate and a session of mybatis. A transaction runs statements of the
+ * operation, one update each, throughput is counted by statements. autocommit runs the same updates without a transaction
+ * (hibernate runs every update in a transaction of its own).
+ * arguments: txStatements=10 isolation=default|READ_UNCOMMITTED|READ_COMMITTED|REPEATABLE_READ|SERIALIZABLE txEnd=commit|rollback|autocommit
+ */
+public class TransactionScenario extends KeyScenario {
+	
+	public static final String COMMIT = "commit", ROLLBACK = "rollback", AUTOCOMMIT = "autocommit";
+	
+	public static final String[] ISOLATIONS = new String[]{"default", "READ_UNCOMMITTED", "READ_COMMITTED", "REPEATABLE_READ", "SERIALIZABLE"};
+	
+	static final int[] LEVELS = new int[]{Dao.ISOLATION_DEFAULT, Connection.TRANSACTION_READ_UNCOMMITTED, Connection.TRANSACTION_READ_COMMITTED,
+		Connection.TRANSACTION_REPEATABLE_READ, Connection.TRANSACTION_SERIALIZABLE};
+	
+	private int statements = 10, isolation = Dao.ISOLATION_DEFAULT;
+	private String end = COMMIT;
+
+	@Override
+	public String getName() {
+		return "transaction";
+	}
+
+	@Override
+	public int getRows() {
+		return statements;
+	}
+	
+	//statements per transaction are not divided by speed, the table is
+	@Override
+	public boolean isScaled() {
+		return false;
+	}
+	
+	@Override
+	public int getTableRows() {
+		return 10000;
+	}
+	
+	@Override
+	public void configure(Arguments args) {
+		super.configure(args);
+		statements = args.getInt("txStatements", statements);
+		try{
+			setIsolation(args.get("isolation", "default"));
+			setEnd(args.get("txEnd", end));
+		}catch(Exception e){
+			System.out.println(e.getMessage());
+		}
+	}
+	
+	public void setStatements(int statements) {
+		this.statements = statements;
+	}
+	
+	/**
+	 * isolation level by name, default keeps the level of the connection
+	 */
+	public void setIsolation(String name) throws Exception{
+		for (int i = 0; i < ISOLATIONS.length; i++) {
+			if(ISOLATIONS[i].equalsIgnoreCase(name)){
+				isolation = LEVELS[i];
+				return;
+			}
+		}
+		throw new Exception("isolation '"+name+"' not exist, available: "+Arrays.asList(ISOLATIONS)+".");
+	}
+	
+	/**
+	 * commit, rollback or autocommit
+	 */
+	public void setEnd(String end) throws Exception{
+		if(!COMMIT.equals(end) && !ROLLBACK.equals(end) && !AUTOCOMMIT.equals(end))
+			throw new Exception("txEnd '"+end+"' not exist, available: commit, rollback, autocommit.");
+		this.end = end;
+	}
+
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		long[] studentIds = new long[rows];
+		for (int i = 0; i < rows; i++) {
+			studentIds[i] = keys.next();
+		}
+		
+		long start = System.nanoTime();
+		int result = 0;
+		if(AUTOCOMMIT.equals(end)){
+			for (int i = 0; i < studentIds.length; i++) {
+				result += dao.update(studentIds[i]);
+			}
+		}else
+			result = dao.transaction(studentIds, isolation, ROLLBACK.equals(end));
+		record(histogram, start);
+		return result;
+	}
+}
@@ -0,0 +1,23 @@
+package org.rex.db.test.performance;
+
+/**
+ * updates rows one by one by random primary keys, hibernate runs HQL update statements instead of dirty checking
+ */
+public class UpdateHqlScenario extends UpdateScenario {
+
+	@Override
+	public String getName() {
+		return "update-hql";
+	}
+	
+	@Override
+	public void setUp(Dao dao, int tableRows) throws Exception {
+		super.setUp(dao, tableRows);
+		HibernateDao.setHqlUpdate(true);
+	}
+	
+	@Override
+	public void tearDown(Dao dao) throws Exception {
+		HibernateDao.setHqlUpdate(false);
+	}
+}
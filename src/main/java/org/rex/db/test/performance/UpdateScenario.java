@@ -0,0 +1,45 @@
+package org.rex.db.test.performance;
+
+/**
+ * updates rows one by one by random primary keys, hibernate updates loaded entities found dirty at commit.
+ * writes are not run by default, select them with scenario=update
+ */
+public class UpdateScenario extends KeyScenario {
+
+	@Override
+	public String getName() {
+		return "update";
+	}
+
+	@Override
+	public int getRows() {
+		return 500;
+	}
+	
+	@Override
+	public int getTableRows() {
+		return 10000;
+	}
+	
+	@Override
+	public boolean isRowByRow() {
+		return true;
+	}
+
+	@Override
+	public boolean isDefault() {
+		return false;
+	}
+	
+	@Override
+	public Object execute(Dao dao, int rows, Histogram histogram) throws Exception {
+		int result = 0;
+		for (int i = 0; i < rows; i++) {
+			long studentId = keys.next();
+			long start = System.nanoTime();
+			result = dao.update(studentId);
+			record(histogram, start);
+		}
+		return result;
+	}
+}
@@ -1,3 +1,28 @@
+--PROCEDURES, ported from mysql.sql. procedures return result sets by cursors declared WITH RETURN
+DROP PROCEDURE rexdb_test_proc_in IF EXISTS;
+
+$$
+
+DROP PROCEDURE rexdb_test_proc_out IF EXISTS;
+
+$$
+
+DROP PROCEDURE rexdb_test_proc_in_out IF EXISTS;
+
+$$
+
+DROP PROCEDURE rexdb_test_proc_inout IF EXISTS;
+
+$$
+
+DROP PROCEDURE rexdb_test_proc_return IF EXISTS;
+
+$$
+
+DROP PROCEDURE rexdb_test_proc_return_rs IF EXISTS;
+
+$$
+
 drop TABLE IF EXISTS rexdb_test_student;
 
 $$
@@ -16,4 +41,51 @@ CREATE TABLE IF NOT EXISTS rexdb_test_student (
 	PRIMARY KEY (student_id)
 );
 
-$$
\ No newline at end of file
+$$
+
+CREATE PROCEDURE rexdb_test_proc_in (IN id INT) READS SQL DATA DYNAMIC RESULT SETS 1
+	BEGIN ATOMIC
+		DECLARE result CURSOR WITH RETURN FOR SELECT * FROM rexdb_test_student WHERE student_id = id;
+		OPEN result;
+	END;
+
+$$
+
+CREATE PROCEDURE rexdb_test_proc_out (OUT s INT) READS SQL DATA
+	BEGIN ATOMIC
+		SELECT COUNT(*) INTO s FROM rexdb_test_student;
+	END;
+
+$$
+
+CREATE PROCEDURE rexdb_test_proc_in_out (IN id INT, OUT m INT) READS SQL DATA
+	BEGIN ATOMIC
+		SELECT major INTO m FROM rexdb_test_student WHERE student_id = id;
+	END;
+
+$$
+
+CREATE PROCEDURE rexdb_test_proc_inout (INOUT c INT) READS SQL DATA
+	BEGIN ATOMIC
+		SELECT COUNT(*) + c INTO c FROM rexdb_test_student;
+	END;
+
+$$
+
+CREATE PROCEDURE rexdb_test_proc_return () READS SQL DATA DYNAMIC RESULT SETS 1
+	BEGIN ATOMIC
+		DECLARE result CURSOR WITH RETURN FOR SELECT COUNT(*) AS c FROM rexdb_test_student;
+		OPEN result;
+	END;
+
+$$
+
+CREATE PROCEDURE rexdb_test_proc_return_rs () READS SQL DATA DYNAMIC RESULT SETS 2
+	BEGIN ATOMIC
+		DECLARE result1 CURSOR WITH RETURN FOR SELECT * FROM rexdb_test_student ORDER BY student_id LIMIT 5;
+		DECLARE result2 CURSOR WITH RETURN FOR SELECT * FROM rexdb_test_student ORDER BY student_id OFFSET 5 ROWS FETCH NEXT 9 ROWS ONLY;
+		OPEN result1;
+		OPEN result2;
+	END;
+
+$$
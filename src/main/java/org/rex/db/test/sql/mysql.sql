@@ -54,8 +54,8 @@ CREATE TABLE IF NOT EXISTS rexdb_test_student (
 	birth_time time NOT NULL,
 	enrollment_time datetime NOT NULL,
 	major smallint(6) NOT NULL,
-	photo blob,
-	remark text,
+	photo longblob,
+	remark longtext,
 	readonly tinyint(1) NOT NULL,
 	PRIMARY KEY (student_id)
 );